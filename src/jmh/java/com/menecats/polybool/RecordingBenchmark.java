@@ -0,0 +1,62 @@
+package com.menecats.polybool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RecordingBenchmark {
+    // replays the recordings of a SlowOperationRecorder, one result for every file or directory
+    // given with -Precordings, several of them separated by commas
+    @Param("recordings")
+    public String recordings;
+
+    private List<Recording> loaded;
+
+    @Setup
+    public void load() throws IOException {
+        List<Path> files = new ArrayList<>();
+        Path path = Paths.get(recordings);
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> list = Files.list(path)) {
+                files.addAll(list.filter(Files::isRegularFile).sorted().collect(Collectors.toList()));
+            }
+        } else {
+            files.add(path);
+        }
+
+        loaded = new ArrayList<>(files.size());
+        for (Path file : files)
+            loaded.add(Recording.read(file));
+    }
+
+    @Benchmark
+    public long replay() {
+        long total = 0;
+        for (Recording recording : loaded)
+            total += recording.replay();
+        return total;
+    }
+}
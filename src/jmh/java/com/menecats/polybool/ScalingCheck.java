@@ -0,0 +1,155 @@
+package com.menecats.polybool;
+
+import com.menecats.polybool.internal.GeoJSON;
+import com.menecats.polybool.models.Polygon;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+public final class ScalingCheck {
+    // runs every operation on every workload across doubling sizes, fits the growth exponent of
+    // its time (the slope of log time over log size), and fails when one grows faster than the
+    // bound, which catches paths turning quadratic long before they show up in production
+    //
+    //     ./gradlew scalingCheck -PmaxExponent=chain=1.2,combine=2.5 -PminSize=500 -Pdoublings=3
+    //
+    // the bounds are a single exponent for every operation, operation=exponent overrides, or
+    // workload/operation=exponent overrides for a single workload
+    // the defaults are the growth measured on every workload, at 500 to 4000 vertices, with room
+    // for the noise of the smaller sizes: segments 1.75 to 2.05, combine 1.98 to 2.12, geojson 1.93
+    // to 2.05, and chain 0.25 to 1.36, or 1.74 for a single long ring
+    // the sweeps keep their events in a linked list, sorted by insertion, so they are about
+    // quadratic already, but their bounds still fail the check when one of them gets to cubic
+    private static final int REPEATS = 3; // the best time of every size is kept
+    private static final int WARMUPS = 4;
+    private static final String DEFAULT_BOUNDS = "segments=2.5,combine=2.5,chain=1.8,geojson=2.6,random simple/chain=2.2";
+
+    private interface Operation {
+        Object run(Epsilon epsilon, Polygon polygon);
+    }
+
+    public static void main(String[] args) {
+        Map<String, Double> bounds = new LinkedHashMap<>();
+        bounds(bounds, DEFAULT_BOUNDS);
+        if (args.length > 0 && !args[0].isEmpty())
+            bounds(bounds, args[0]);
+        int minSize = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int doublings = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        Map<String, Function<Integer, Polygon>> workloads = new LinkedHashMap<>();
+        workloads.put("random simple", Workloads::randomSimple);
+        workloads.put("many holes", Workloads::manyHoles);
+        workloads.put("zig-zags", Workloads::zigZags);
+        workloads.put("collinear grid", Workloads::collinearGrid);
+        workloads.put("multipolygon", Workloads::multiPolygon);
+
+        Map<String, Operation> operations = new LinkedHashMap<>();
+        operations.put("segments", PolyBool::segments);
+        operations.put("combine", (epsilon, polygon) -> {
+            PolyBool.Segments segments1 = PolyBool.segments(epsilon, polygon);
+            PolyBool.Segments segments2 = PolyBool.segments(epsilon, Workloads.shifted(polygon, 0.25, 0.125));
+            long start = System.nanoTime();
+            PolyBool.combine(epsilon, segments1, segments2);
+            return System.nanoTime() - start; // only the combine is timed
+        });
+        operations.put("chain", (epsilon, polygon) -> {
+            PolyBool.Segments segments = PolyBool.segments(epsilon, polygon);
+            long start = System.nanoTime();
+            PolyBool.polygon(epsilon, segments);
+            return System.nanoTime() - start;
+        });
+        operations.put("geojson", (epsilon, polygon) -> GeoJSON.fromPolygon(epsilon, polygon));
+
+        Epsilon epsilon = new Epsilon();
+        List<String> failures = new ArrayList<>();
+        for (Map.Entry<String, Function<Integer, Polygon>> workload : workloads.entrySet()) {
+            for (Map.Entry<String, Operation> operation : operations.entrySet()) {
+                double[] sizes = new double[doublings + 1];
+                double[] times = new double[doublings + 1];
+                for (int k = 0; k < WARMUPS; k++) // the smaller sizes would pay for the compilation
+                    time(epsilon, workload.getValue().apply(minSize << (k % 2)), operation.getValue());
+                for (int k = 0; k <= doublings; k++) {
+                    Polygon polygon = workload.getValue().apply(minSize << k);
+                    sizes[k] = vertices(polygon);
+                    times[k] = time(epsilon, polygon, operation.getValue());
+                }
+
+                double exponent = exponent(sizes, times);
+                double bound = bounds.getOrDefault(
+                        workload.getKey() + "/" + operation.getKey(), bounds.get(operation.getKey())
+                );
+                String line = String.format(
+                        "%-16s %-10s %10.0f vertices %10.3f ms   exponent %.2f (bound %.2f)",
+                        workload.getKey(), operation.getKey(), sizes[doublings], times[doublings] / 1e6, exponent, bound
+                );
+                System.out.println(line);
+                if (exponent > bound)
+                    failures.add(line);
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            System.err.println("Growing faster than their bound:");
+            for (String failure : failures)
+                System.err.println("  " + failure);
+            System.exit(1);
+        }
+    }
+
+    private static void bounds(Map<String, Double> bounds, String spec) {
+        // "2" bounds every operation, "chain=1.2,combine=2.5" only the given ones, on every
+        // workload, and "many holes/chain=1.2" a single operation of a single workload
+        for (String part : spec.split(",")) {
+            int equals = part.indexOf('=');
+            if (equals < 0) {
+                double bound = Double.parseDouble(part.trim());
+                bounds.replaceAll((operation, previous) -> bound);
+            } else {
+                String operation = part.substring(0, equals).trim();
+                if (operation.indexOf('/') < 0)
+                    bounds.keySet().removeIf(key -> key.endsWith("/" + operation));
+                bounds.put(operation, Double.parseDouble(part.substring(equals + 1).trim()));
+            }
+        }
+    }
+
+    private static double time(Epsilon epsilon, Polygon polygon, Operation operation) {
+        // operations that only time a part of their work return its time
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < REPEATS; i++) {
+            long start = System.nanoTime();
+            Object result = operation.run(epsilon, polygon);
+            long elapsed = result instanceof Long ? (Long) result : System.nanoTime() - start;
+            best = Math.min(best, elapsed);
+        }
+        return best;
+    }
+
+    private static int vertices(Polygon polygon) {
+        int count = 0;
+        for (List<double[]> region : polygon.getRegions())
+            count += region.size();
+        return count;
+    }
+
+    private static double exponent(double[] sizes, double[] times) {
+        // least squares slope of log(time) over log(size)
+        int n = sizes.length;
+        double sx = 0;
+        double sy = 0;
+        double sxx = 0;
+        double sxy = 0;
+        for (int i = 0; i < n; i++) {
+            double x = Math.log(sizes[i]);
+            double y = Math.log(Math.max(times[i], 1));
+            sx += x;
+            sy += y;
+            sxx += x * x;
+            sxy += x * y;
+        }
+        return (n * sxy - sx * sy) / (n * sxx - sx * sx);
+    }
+}
@@ -0,0 +1,108 @@
+package com.menecats.polybool;
+
+import com.menecats.polybool.models.Polygon;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public final class Workloads {
+    // synthetic polygons of about `n` vertices, for the scaling checks
+    // the random ones are seeded with `n`, so the same size always gives the same polygon
+    private Workloads() {
+    }
+
+    public static Polygon randomSimple(int n) {
+        // a star around the origin, with random radii, simple because the angles only go forward
+        Random random = new Random(n);
+        List<double[]> region = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            double angle = 2 * Math.PI * (i + 0.25 + 0.5 * random.nextDouble()) / n;
+            double radius = 50 + 50 * random.nextDouble();
+            region.add(new double[]{radius * Math.cos(angle), radius * Math.sin(angle)});
+        }
+        return new Polygon(Collections.singletonList(region));
+    }
+
+    public static Polygon manyHoles(int n) {
+        // a square with a grid of small square holes, four vertices each
+        int side = Math.max(1, (int) Math.sqrt(n / 4.0));
+        Random random = new Random(n);
+        List<List<double[]>> regions = new ArrayList<>(side * side + 1);
+        regions.add(square(0, 0, side + 1));
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                double size = 0.2 + 0.5 * random.nextDouble();
+                regions.add(square(i + 1 - size / 2, j + 1 - size / 2, size));
+            }
+        }
+        return new Polygon(regions);
+    }
+
+    public static Polygon zigZags(int n) {
+        // a strip with a dense zig-zag on top, crossed by itself shifted up and sideways, so every
+        // tooth crosses its neighbours
+        int teeth = Math.max(2, n / 4);
+        List<double[]> lower = zigZag(teeth, 0, 0);
+        List<double[]> upper = zigZag(teeth, 0.5, 0.5);
+        List<List<double[]>> regions = new ArrayList<>(2);
+        regions.add(lower);
+        regions.add(upper);
+        return new Polygon(regions);
+    }
+
+    private static List<double[]> zigZag(int teeth, double dx, double dy) {
+        List<double[]> region = new ArrayList<>(teeth * 2 + 2);
+        region.add(new double[]{dx, dy - 1});
+        for (int i = 0; i < teeth; i++) {
+            region.add(new double[]{dx + i, dy});
+            region.add(new double[]{dx + i + 0.5, dy + 1});
+        }
+        region.add(new double[]{dx + teeth, dy - 1});
+        return region;
+    }
+
+    public static Polygon collinearGrid(int n) {
+        // a grid of unit squares sharing their sides, all of them overlapping collinear edges
+        int side = Math.max(1, (int) Math.sqrt(n / 4.0));
+        List<List<double[]>> regions = new ArrayList<>(side * side);
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++)
+                regions.add(square(i, j, 1));
+        }
+        return new Polygon(regions);
+    }
+
+    public static Polygon multiPolygon(int n) {
+        // many small disjoint squares, a huge MultiPolygon as GeoJSON
+        int side = Math.max(1, (int) Math.sqrt(n / 4.0));
+        List<List<double[]>> regions = new ArrayList<>(side * side);
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++)
+                regions.add(square(i * 2, j * 2, 1));
+        }
+        return new Polygon(regions);
+    }
+
+    private static List<double[]> square(double x, double y, double size) {
+        List<double[]> region = new ArrayList<>(4);
+        region.add(new double[]{x, y});
+        region.add(new double[]{x + size, y});
+        region.add(new double[]{x + size, y + size});
+        region.add(new double[]{x, y + size});
+        return region;
+    }
+
+    public static Polygon shifted(Polygon polygon, double dx, double dy) {
+        // the other operand of the combine checks
+        List<List<double[]>> regions = new ArrayList<>(polygon.getRegions().size());
+        for (List<double[]> region : polygon.getRegions()) {
+            List<double[]> moved = new ArrayList<>(region.size());
+            for (double[] pt : region)
+                moved.add(new double[]{pt[0] + dx, pt[1] + dy});
+            regions.add(moved);
+        }
+        return new Polygon(regions, polygon.isInverted());
+    }
+}
@@ -1,5 +1,7 @@
 package com.menecats.polybool;
 
+import com.menecats.polybool.internal.BatchKernels;
+
 import java.util.List;
 
 import static com.menecats.polybool.helpers.PolyBoolHelper.point;
@@ -12,6 +14,7 @@ public class Epsilon {
     }
 
     protected double eps;
+    private PolyBoolOptions options = PolyBoolOptions.DEFAULT;
 
     public Epsilon() {
         this(1e-10);
@@ -21,10 +24,31 @@ public class Epsilon {
         this.eps = eps;
     }
 
+    public double epsilon() {
+        return this.eps;
+    }
+
     public double epsilon(double eps) {
         return (this.eps = Math.abs(eps));
     }
 
+    public PolyBoolOptions options() {
+        return this.options;
+    }
+
+    public PolyBoolOptions options(PolyBoolOptions options) {
+        // how PolyBool sweeps the polygons given with this epsilon: the segments cache, the
+        // monotone chains, the parallel sweep, the slow operation recorder and the simplification
+        // null restores the defaults
+        return (this.options = options == null ? PolyBoolOptions.DEFAULT : options);
+    }
+
+    public double epsilonAt(double magnitude) {
+        // the epsilon as a distance, between coordinates up to `magnitude` in absolute value
+        // the same everywhere here, relative to the coordinates for RobustEpsilon
+        return this.eps;
+    }
+
     public boolean pointAboveOrOnLine(double[] pt, double[] left, double[] right) {
         double Ax = left[0];
         double Ay = left[1];
@@ -173,4 +197,57 @@ public class Epsilon {
         }
         return inside;
     }
+
+    // batch versions of the predicates, for the points at every index of `out`, in a single pass
+    // over packed coordinates, vectorized on Java 17 and later (see BatchKernels)
+    // subclasses have their own predicates, so they test the points one by one
+    public void pointsAboveOrOnLine(double[] px, double[] py, double[] ax, double[] ay, double[] bx, double[] by,
+                                    boolean[] out) {
+        if (this.getClass() == Epsilon.class) {
+            BatchKernels.pointsAboveOrOnLine(px, py, ax, ay, bx, by, out.length, this.eps, out);
+            return;
+        }
+        double[] pt = new double[2];
+        double[] left = new double[2];
+        double[] right = new double[2];
+        for (int i = 0; i < out.length; i++) {
+            pt[0] = px[i];
+            pt[1] = py[i];
+            left[0] = ax[i];
+            left[1] = ay[i];
+            right[0] = bx[i];
+            right[1] = by[i];
+            out[i] = this.pointAboveOrOnLine(pt, left, right);
+        }
+    }
+
+    public void pointsInsideRegions(double[] xs, double[] ys, List<List<double[]>> regions, boolean[] out) {
+        // whether every point is inside an odd number of the regions, like the regions of a polygon
+        for (int i = 0; i < out.length; i++)
+            out[i] = false;
+        if (this.getClass() == Epsilon.class) {
+            for (List<double[]> region : regions) {
+                if (region.isEmpty())
+                    continue;
+                double[] packed = new double[region.size() * 2];
+                for (int p = 0; p < region.size(); p++) {
+                    packed[p * 2] = region.get(p)[0];
+                    packed[p * 2 + 1] = region.get(p)[1];
+                }
+                BatchKernels.flipInsideRegion(packed, region.size(), xs, ys, out.length, this.eps, out);
+            }
+            return;
+        }
+        double[] pt = new double[2];
+        for (List<double[]> region : regions) {
+            if (region.isEmpty())
+                continue;
+            for (int i = 0; i < out.length; i++) {
+                pt[0] = xs[i];
+                pt[1] = ys[i];
+                if (this.pointInsideRegion(pt, region))
+                    out[i] = !out[i];
+            }
+        }
+    }
 }
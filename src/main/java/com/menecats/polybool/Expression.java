@@ -0,0 +1,78 @@
+package com.menecats.polybool;
+
+import com.menecats.polybool.models.Polygon;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public final class Expression {
+    // a tree of operations, evaluated by PolyBool.evaluate on segments, without chaining the
+    // intermediate results into polygons
+
+    final PolyBool.Operation operation; // null for the leaves
+    final Polygon polygon;
+    final PolyBool.Segments segments;
+    final List<Expression> operands;
+
+    private Expression(PolyBool.Operation operation, Polygon polygon, PolyBool.Segments segments, List<Expression> operands) {
+        this.operation = operation;
+        this.polygon = polygon;
+        this.segments = segments;
+        this.operands = operands;
+    }
+
+    public static Expression of(Polygon polygon) {
+        return new Expression(null, polygon, null, Collections.emptyList());
+    }
+
+    public static Expression of(PolyBool.Segments segments) {
+        return new Expression(null, null, segments, Collections.emptyList());
+    }
+
+    public static Expression union(Expression... operands) {
+        return operation(PolyBool.Operation.UNION, operands);
+    }
+
+    public static Expression intersect(Expression... operands) {
+        return operation(PolyBool.Operation.INTERSECT, operands);
+    }
+
+    public static Expression difference(Expression first, Expression... others) { // first - all the others
+        Expression[] operands = new Expression[others.length + 1];
+        operands[0] = first;
+        System.arraycopy(others, 0, operands, 1, others.length);
+        return operation(PolyBool.Operation.DIFFERENCE, operands);
+    }
+
+    public static Expression xor(Expression... operands) {
+        return operation(PolyBool.Operation.XOR, operands);
+    }
+
+    private static Expression operation(PolyBool.Operation operation, Expression[] operands) {
+        if (operands.length == 0)
+            throw new IllegalArgumentException("PolyBool: An operation needs at least one operand");
+        return new Expression(operation, null, null, Collections.unmodifiableList(Arrays.asList(operands.clone())));
+    }
+
+    public PolyBool.Operation getOperation() {
+        return operation;
+    }
+
+    public List<Expression> getOperands() {
+        return operands;
+    }
+
+    @Override
+    public String toString() {
+        if (operation == null)
+            return polygon != null ? "polygon" : "segments";
+        StringBuilder builder = new StringBuilder(operation.name().toLowerCase()).append('(');
+        for (int i = 0; i < operands.size(); i++) {
+            if (i > 0)
+                builder.append(", ");
+            builder.append(operands.get(i));
+        }
+        return builder.append(')').toString();
+    }
+}
@@ -0,0 +1,10 @@
+package com.menecats.polybool;
+
+import com.menecats.polybool.models.Polygon;
+
+public interface JoinSink {
+    // receives the pairs found by a spatial join, one call at a time, in no particular order
+    // `polygon` is the result of the operation for that pair, or null for joins on a predicate
+
+    void pair(int leftIndex, int rightIndex, Polygon polygon);
+}
@@ -6,60 +6,203 @@ package com.menecats.polybool;
  */
 
 import com.menecats.polybool.internal.*;
+import com.menecats.polybool.models.ClippedLine;
+import com.menecats.polybool.models.Overlay;
 import com.menecats.polybool.models.Polygon;
-import com.menecats.polybool.models.Segment;
+import com.menecats.polybool.models.Triangulation;
 import com.menecats.polybool.models.geojson.Geometry;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.LongPredicate;
 
 public final class PolyBool {
+    public enum Operation {
+        UNION,
+        INTERSECT,
+        DIFFERENCE,
+        DIFFERENCE_REV,
+        XOR
+    }
+
+    public enum Relation {
+        INTERSECTS,
+        TOUCHES,
+        CONTAINS, // the left polygon contains the right one
+        WITHIN // the left polygon is inside the right one
+    }
+
     public static final class Segments {
-        private final List<Segment> segments;
+        private final SegmentBuffer segments;
         private final boolean inverted;
+        private BoundingBox bounds;
 
-        private Segments(List<Segment> segments, boolean inverted) {
+        private Segments(SegmentBuffer segments, boolean inverted) {
             this.segments = segments;
             this.inverted = inverted;
         }
+
+        private BoundingBox bounds() {
+            // computed once, so segments that are reused across many queries only pay for it once
+            if (this.bounds == null)
+                this.bounds = BoundingBox.of(this.segments);
+            return this.bounds;
+        }
+
+        long weight() {
+            // approximate size in bytes: four coordinates and a fill byte per segment
+            return 64L + this.segments.size() * 33L;
+        }
     }
 
     public static final class Combined {
-        private final List<Segment> combined;
+        private final SegmentBuffer combined;
         private final boolean inverted1;
         private final boolean inverted2;
 
-        private Combined(List<Segment> combined, boolean inverted1, boolean inverted2) {
+        private Combined(SegmentBuffer combined, boolean inverted1, boolean inverted2) {
             this.combined = combined;
             this.inverted1 = inverted1;
             this.inverted2 = inverted2;
         }
     }
 
+    public static final class MultiCombined {
+        private final MultiSegments combined;
+
+        private MultiCombined(MultiSegments combined) {
+            this.combined = combined;
+        }
+    }
+
+    private static final Polygon NO_POLYGON = new Polygon(); // a related pair, for joins on a predicate
+    private static final long JOIN_CACHE_WEIGHT = 64L << 20; // for the right polygons of a join, about 64 MB
+
     // Core API
     public static Segments segments(Epsilon epsilon, Polygon polygon) {
-        SelfIntersecter i = new SelfIntersecter(epsilon);
+        // the options of `epsilon` decide how the polygon is swept, see PolyBoolOptions
+        SegmentsCache cache = epsilon.options().getSegmentsCache();
+        if (cache != null)
+            return cache.segments(epsilon, polygon, () -> calculateSegments(epsilon, polygon));
+        return calculateSegments(epsilon, polygon);
+    }
+
+    private static Segments calculateSegments(Epsilon epsilon, Polygon polygon) {
+        PolyBoolOptions options = epsilon.options();
+        if (options.getSimplifyTolerance() > 0)
+            polygon = simplify(polygon, options.getSimplifyTolerance());
+
+        SlowOperationRecorder recorder = options.getSlowOperationRecorder();
+        if (recorder == null)
+            return new Segments(sweepSegments(epsilon, options, polygon), polygon.isInverted());
+
+        long start = System.nanoTime();
+        SegmentBuffer segments = sweepSegments(epsilon, options, polygon);
+        recorder.segments(epsilon, polygon, System.nanoTime() - start, segments.size());
+        return new Segments(segments, polygon.isInverted());
+    }
+
+    static SegmentBuffer sweepSegments(Epsilon epsilon, PolyBoolOptions options, Polygon polygon) {
+        if (options.isParallelSweep()) {
+            SegmentBuffer segments = SlabSweep.selfIntersect(epsilon, polygon.getRegions(), polygon.isInverted());
+            if (segments != null)
+                return segments;
+        }
+
+        SelfIntersecter i = new SelfIntersecter(epsilon, options.isMonotoneChains());
 
         for (List<double[]> region : polygon.getRegions()) {
             i.addRegion(region);
         }
 
-        return new Segments(
-                i.calculate(polygon.isInverted()),
-                polygon.isInverted()
-        );
+        return i.calculate(polygon.isInverted());
     }
 
     public static Combined combine(Epsilon epsilon, Segments segments1, Segments segments2) {
+        PolyBoolOptions options = epsilon.options();
+        SlowOperationRecorder recorder = options.getSlowOperationRecorder();
+        if (recorder == null) {
+            return new Combined(
+                    sweepCombine(
+                            epsilon, options,
+                            segments1.segments, segments1.inverted,
+                            segments2.segments, segments2.inverted
+                    ),
+                    segments1.inverted,
+                    segments2.inverted
+            );
+        }
+
+        long start = System.nanoTime();
+        SegmentBuffer combined = sweepCombine(
+                epsilon, options,
+                segments1.segments, segments1.inverted,
+                segments2.segments, segments2.inverted
+        );
+        recorder.combine(
+                epsilon,
+                segments1.segments, segments1.inverted,
+                segments2.segments, segments2.inverted,
+                System.nanoTime() - start, combined.size()
+        );
+        return new Combined(combined, segments1.inverted, segments2.inverted);
+    }
+
+    static SegmentBuffer sweepCombine(Epsilon epsilon, PolyBoolOptions options,
+                                      SegmentBuffer segments1, boolean inverted1,
+                                      SegmentBuffer segments2, boolean inverted2) {
+        if (options.isParallelSweep()) {
+            SegmentBuffer combined = SlabSweep.combine(epsilon, segments1, inverted1, segments2, inverted2);
+            if (combined != null)
+                return combined;
+        }
+
         NonSelfIntersecter i3 = new NonSelfIntersecter(epsilon);
 
-        return new Combined(
-                i3.calculate(
-                        segments1.segments, segments1.inverted,
-                        segments2.segments, segments2.inverted
-                ),
-                segments1.inverted,
-                segments2.inverted
+        return i3.calculate(segments1, inverted1, segments2, inverted2);
+    }
+
+    public static MultiCombined combineAll(Epsilon epsilon, List<Segments> segments) {
+        // combines any number of polygons (up to 64) in a single sweep
+        List<SegmentBuffer> inputs = new ArrayList<>(segments.size());
+        boolean[] inverted = new boolean[segments.size()];
+        for (int i = 0; i < segments.size(); i++) {
+            inputs.add(segments.get(i).segments);
+            inverted[i] = segments.get(i).inverted;
+        }
+
+        return new MultiCombined(new MultiIntersecter(epsilon).calculate(inputs, inverted));
+    }
+
+    public static Segments selectUnionAll(MultiCombined combined) {
+        return selectAll(combined, MultiSelector.union());
+    }
+
+    public static Segments selectIntersectAll(MultiCombined combined) {
+        return selectAll(combined, MultiSelector.intersect(combined.combined));
+    }
+
+    public static Segments selectDifferenceAll(MultiCombined combined) { // first - all the others
+        return selectAll(combined, MultiSelector.difference(0));
+    }
+
+    public static Segments selectAtLeast(MultiCombined combined, int count) { // covered by `count` polygons or more
+        return selectAll(combined, MultiSelector.atLeast(count));
+    }
+
+    private static Segments selectAll(MultiCombined combined, LongPredicate selection) {
+        return new Segments(
+                MultiSelector.select(combined.combined, selection),
+                MultiSelector.inverted(combined.combined, selection)
         );
     }
 
@@ -98,13 +241,117 @@ public final class PolyBool {
         );
     }
 
+    public static Map<Operation, Segments> select(Combined combined, Operation... operations) {
+        // selects the results of several operations in a single pass over the combined segments
+        // the results share the coordinates of the combined segments
+        int[] selections = new int[operations.length];
+        for (int i = 0; i < operations.length; i++)
+            selections[i] = selection(operations[i]);
+
+        SegmentBuffer[] selected = SegmentSelector.selectAll(combined.combined, selections);
+
+        Map<Operation, Segments> results = new EnumMap<>(Operation.class);
+        for (int i = 0; i < operations.length; i++)
+            results.put(operations[i], new Segments(selected[i], inverted(combined, operations[i])));
+        return results;
+    }
+
+    private static int selection(Operation operation) {
+        switch (operation) {
+            case UNION:
+                return SegmentSelector.UNION;
+            case INTERSECT:
+                return SegmentSelector.INTERSECT;
+            case DIFFERENCE:
+                return SegmentSelector.DIFFERENCE;
+            case DIFFERENCE_REV:
+                return SegmentSelector.DIFFERENCE_REV;
+            default:
+                return SegmentSelector.XOR;
+        }
+    }
+
+    private static boolean inverted(Combined combined, Operation operation) {
+        switch (operation) {
+            case UNION:
+                return combined.inverted1 || combined.inverted2;
+            case INTERSECT:
+                return combined.inverted1 && combined.inverted2;
+            case DIFFERENCE:
+                return combined.inverted1 && !combined.inverted2;
+            case DIFFERENCE_REV:
+                return !combined.inverted1 && combined.inverted2;
+            default:
+                return combined.inverted1 != combined.inverted2;
+        }
+    }
+
+    public static double area(Segments segments) {
+        // measures the segments directly, without chaining them into regions
+        if (segments.inverted)
+            return Double.POSITIVE_INFINITY;
+        return SegmentMeasure.area(segments.segments);
+    }
+
     public static Polygon polygon(Epsilon epsilon, Segments segments) {
         return new Polygon(
                 SegmentChainer.chain(segments.segments, epsilon),
-                segments.inverted
+                segments.inverted,
+                true
         );
     }
 
+    public static boolean polygon(Epsilon epsilon, Segments segments, PolygonSink sink) {
+        // streams the regions to `sink` as they are chained, without building a Polygon
+        // returns false if the segments couldn't be chained, after `sink` may already have
+        // received some of the regions, so the caller should discard what it got
+        sink.beginPolygon(segments.inverted);
+        boolean chained = SegmentChainer.chain(segments.segments, epsilon, sink);
+        sink.endPolygon();
+        return chained;
+    }
+
+    public static Triangulation triangulate(Epsilon epsilon, Segments segments) {
+        // triangulates the segments directly, without chaining them into regions
+        if (segments.inverted)
+            throw new IllegalArgumentException("PolyBool: An inverted polygon can't be triangulated");
+        return SegmentTriangulator.triangulate(segments.segments, epsilon);
+    }
+
+    public static Triangulation triangulate(Epsilon epsilon, Polygon poly) {
+        return triangulate(epsilon, segments(epsilon, poly));
+    }
+
+    public static void rasterize(Segments segments, double minX, double minY, double maxX, double maxY,
+                                 int width, int height, boolean antiAliased, float[] grid) {
+        // writes the coverage of every cell of the grid, from 0 to 1, row by row from `minY`
+        // anti-aliased cells hold the fraction of their area that is covered, the others are 1 when
+        // their center is covered
+        checkGrid(minX, minY, maxX, maxY, width, height, grid.length);
+        SegmentRasterizer.rasterize(segments.segments, segments.inverted, minX, minY, maxX, maxY, width, height, antiAliased,
+                (row, coverage) -> System.arraycopy(coverage, 0, grid, row * width, width)
+        );
+    }
+
+    public static void rasterize(Segments segments, double minX, double minY, double maxX, double maxY,
+                                 int width, int height, boolean antiAliased, byte[] grid) {
+        // same as above, with the coverage from 0 to 255, as an unsigned byte
+        checkGrid(minX, minY, maxX, maxY, width, height, grid.length);
+        SegmentRasterizer.rasterize(segments.segments, segments.inverted, minX, minY, maxX, maxY, width, height, antiAliased,
+                (row, coverage) -> {
+                    for (int c = 0; c < width; c++)
+                        grid[row * width + c] = (byte) Math.round(coverage[c] * 255);
+                }
+        );
+    }
+
+    private static void checkGrid(double minX, double minY, double maxX, double maxY, int width, int height, int length) {
+        if (!(minX < maxX) || !(minY < maxY))
+            throw new IllegalArgumentException("PolyBool: The extent must have a positive width and height");
+        if (width <= 0 || height <= 0 || (long) width * height > length)
+            throw new IllegalArgumentException("PolyBool: The grid must have room for width * height cells");
+    }
+
     // Public API
     private static Polygon operate(Epsilon epsilon, Polygon poly1, Polygon poly2, Function<Combined, Segments> selector) {
         Segments seg1 = segments(epsilon, poly1);
@@ -114,26 +361,514 @@ public final class PolyBool {
         return polygon(epsilon, seg3);
     }
 
+    private static Polygon operateConvex(Epsilon epsilon, Polygon poly1, Polygon poly2, Operation operation) {
+        // two convex polygons don't need the sweep: they are intersected in linear time, and when
+        // they are apart every operation just keeps the rings it needs
+        // returns null if the polygons aren't both a single convex region
+        // they are simplified as `segments` would, so both paths see the same polygons, but only
+        // when they can be convex, the sweep simplifies the others itself
+        double tolerance = epsilon.options().getSimplifyTolerance();
+        if (tolerance > 0 && singleRegion(poly1) && singleRegion(poly2)) {
+            poly1 = simplify(poly1, tolerance);
+            poly2 = simplify(poly2, tolerance);
+        }
+        List<double[]> ring1 = ConvexClipper.convexRing(epsilon, poly1);
+        if (ring1 == null)
+            return null;
+        List<double[]> ring2 = ConvexClipper.convexRing(epsilon, poly2);
+        if (ring2 == null)
+            return null;
+
+        List<List<double[]>> regions1 = Collections.singletonList(ring1);
+        List<List<double[]>> regions2 = Collections.singletonList(ring2);
+        if (BoundingBox.ofRegions(regions1).intersects(BoundingBox.ofRegions(regions2), epsilon)) {
+            if (operation != Operation.INTERSECT)
+                return null;
+            return new Polygon(ConvexClipper.intersect(epsilon, ring1, ring2), false, true);
+        }
+
+        List<List<double[]>> regions = new ArrayList<>();
+        if (operation == Operation.UNION || operation == Operation.DIFFERENCE || operation == Operation.XOR)
+            regions.add(ring1);
+        if (operation == Operation.UNION || operation == Operation.DIFFERENCE_REV || operation == Operation.XOR)
+            regions.add(ring2);
+        return new Polygon(regions, false, true);
+    }
+
+    private static boolean singleRegion(Polygon poly) {
+        return poly.getRegions() != null && poly.getRegions().size() == 1;
+    }
+
     public static Polygon union(Epsilon epsilon, Polygon poly1, Polygon poly2) {
+        Polygon convex = operateConvex(epsilon, poly1, poly2, Operation.UNION);
+        if (convex != null)
+            return convex;
         return operate(epsilon, poly1, poly2, PolyBool::selectUnion);
     }
 
     public static Polygon intersect(Epsilon epsilon, Polygon poly1, Polygon poly2) {
+        Polygon convex = operateConvex(epsilon, poly1, poly2, Operation.INTERSECT);
+        if (convex != null)
+            return convex;
         return operate(epsilon, poly1, poly2, PolyBool::selectIntersect);
     }
 
     public static Polygon difference(Epsilon epsilon, Polygon poly1, Polygon poly2) {
+        Polygon convex = operateConvex(epsilon, poly1, poly2, Operation.DIFFERENCE);
+        if (convex != null)
+            return convex;
         return operate(epsilon, poly1, poly2, PolyBool::selectDifference);
     }
 
     public static Polygon differenceRev(Epsilon epsilon, Polygon poly1, Polygon poly2) {
+        Polygon convex = operateConvex(epsilon, poly1, poly2, Operation.DIFFERENCE_REV);
+        if (convex != null)
+            return convex;
         return operate(epsilon, poly1, poly2, PolyBool::selectDifferenceRev);
     }
 
     public static Polygon xor(Epsilon epsilon, Polygon poly1, Polygon poly2) {
+        Polygon convex = operateConvex(epsilon, poly1, poly2, Operation.XOR);
+        if (convex != null)
+            return convex;
         return operate(epsilon, poly1, poly2, PolyBool::selectXor);
     }
 
+    public static Polygon simplify(Polygon poly, double tolerance) {
+        // removes the vertices closer than `tolerance` to the line through their neighbours, the
+        // closest first, and keeps any vertex whose removal would make two edges cross or touch,
+        // so valid polygons stay valid
+        // every ring keeps at least three vertices
+        checkTolerance(tolerance);
+        return new Polygon(TopologySimplifier.simplify(poly.getRegions(), tolerance), poly.isInverted());
+    }
+
+    static void checkTolerance(double tolerance) {
+        if (!(tolerance >= 0) || Double.isInfinite(tolerance))
+            throw new IllegalArgumentException("PolyBool: The tolerance must be a finite number, not negative");
+    }
+
+    public static Polygon clipToRect(Epsilon epsilon, Polygon poly, double minX, double minY, double maxX, double maxY) {
+        // same as intersecting with the rectangle, but only the points left inside it are swept
+        if (!(minX < maxX) || !(minY < maxY))
+            throw new IllegalArgumentException("PolyBool: The rectangle must have a positive width and height");
+        return new Polygon(RectClipper.clip(epsilon, poly, minX, minY, maxX, maxY), false, true);
+    }
+
+    public static void clipToTiles(Epsilon epsilon, Polygon poly, double minX, double minY, double maxX, double maxY,
+                                   int minZoom, int maxZoom, double buffer, TileSink sink) {
+        // clips the polygon to every tile from `minZoom` to `maxZoom` of the pyramid over the
+        // extent, where every tile is grown on each side by `buffer` times its size
+        if (!(minX < maxX) || !(minY < maxY))
+            throw new IllegalArgumentException("PolyBool: The extent must have a positive width and height");
+        if (minZoom < 0 || maxZoom < minZoom || maxZoom > 30)
+            throw new IllegalArgumentException("PolyBool: The zoom levels must be between 0 and 30");
+        if (!(buffer >= 0))
+            throw new IllegalArgumentException("PolyBool: The buffer can't be negative");
+        TileClipper.clip(epsilon, poly, minX, minY, maxX, maxY, minZoom, maxZoom, buffer, sink);
+    }
+
+    private static Polygon operateAll(Epsilon epsilon, List<Polygon> polygons, Function<MultiCombined, Segments> selector) {
+        return polygon(epsilon, selector.apply(combineAllPolygons(epsilon, polygons)));
+    }
+
+    public static Polygon unionAll(Epsilon epsilon, List<Polygon> polygons) {
+        return operateAll(epsilon, polygons, PolyBool::selectUnionAll);
+    }
+
+    public static Polygon intersectAll(Epsilon epsilon, List<Polygon> polygons) {
+        return operateAll(epsilon, polygons, PolyBool::selectIntersectAll);
+    }
+
+    public static Polygon differenceAll(Epsilon epsilon, List<Polygon> polygons) { // first - all the others
+        return operateAll(epsilon, polygons, PolyBool::selectDifferenceAll);
+    }
+
+    public static Polygon atLeast(Epsilon epsilon, List<Polygon> polygons, int count) {
+        return operateAll(epsilon, polygons, combined -> selectAtLeast(combined, count));
+    }
+
+    // Expressions
+    public static Polygon evaluate(Epsilon epsilon, Expression expression) {
+        // evaluates the whole tree on segments, and chains only the final result
+        return polygon(epsilon, evaluateSegments(epsilon, expression));
+    }
+
+    public static Segments evaluateSegments(Epsilon epsilon, Expression expression) {
+        Map<Expression, BoundingBox> bounds = new IdentityHashMap<>();
+        estimateBounds(expression, bounds);
+        return evaluate(epsilon, expression, bounds);
+    }
+
+    private static BoundingBox estimateBounds(Expression expression, Map<Expression, BoundingBox> bounds) {
+        // a box the result of every subtree is sure to fit in, found without running any sweep
+        BoundingBox box;
+        if (expression.operation == null) {
+            if (expression.segments != null)
+                box = joinBounds(expression.segments);
+            else if (expression.polygon.isInverted())
+                box = EVERYWHERE;
+            else
+                box = BoundingBox.ofRegions(expression.polygon.getRegions());
+        } else {
+            box = estimateBounds(expression.operands.get(0), bounds);
+            for (int i = 1; i < expression.operands.size(); i++) {
+                BoundingBox operand = estimateBounds(expression.operands.get(i), bounds);
+                if (expression.operation == Operation.INTERSECT)
+                    box = box.intersection(operand);
+                else if (expression.operation != Operation.DIFFERENCE)
+                    box = box.union(operand);
+            }
+        }
+        bounds.put(expression, box);
+        return box;
+    }
+
+    private static Segments evaluate(Epsilon epsilon, Expression expression, Map<Expression, BoundingBox> bounds) {
+        if (expression.operation == null)
+            return expression.segments != null ? expression.segments : segments(epsilon, expression.polygon);
+        if (bounds.get(expression).isEmpty())
+            return emptySegments();
+
+        // the subtrees that can't change the result aren't evaluated at all
+        List<Expression> operands = new ArrayList<>(expression.operands.size());
+        BoundingBox first = bounds.get(expression.operands.get(0));
+        for (int i = 0; i < expression.operands.size(); i++) {
+            Expression operand = expression.operands.get(i);
+            BoundingBox box = bounds.get(operand);
+            if (i > 0 && expression.operation == Operation.DIFFERENCE && !first.intersects(box, epsilon))
+                continue;
+            if (box.isEmpty() && (i > 0 || expression.operation != Operation.DIFFERENCE))
+                continue;
+            operands.add(operand);
+        }
+
+        // independent subtrees are evaluated in parallel
+        Segments[] evaluated = new Segments[operands.size()];
+        IntStream.range(0, evaluated.length).parallel().forEach(i -> evaluated[i] = evaluate(epsilon, operands.get(i), bounds));
+
+        List<Segments> results = new ArrayList<>(evaluated.length);
+        for (Segments segments : evaluated) {
+            if (!isEmpty(segments))
+                results.add(segments);
+            else if (expression.operation == Operation.INTERSECT || results.isEmpty() && expression.operation == Operation.DIFFERENCE)
+                return emptySegments();
+        }
+        if (results.isEmpty())
+            return emptySegments();
+
+        switch (expression.operation) {
+            case UNION:
+                return unionSegments(epsilon, results);
+            case INTERSECT:
+                return intersectSegments(epsilon, results);
+            case XOR:
+                return xorSegments(epsilon, results);
+            default:
+                return differenceSegments(epsilon, results.get(0), results.subList(1, results.size()));
+        }
+    }
+
+    private static Segments unionSegments(Epsilon epsilon, List<Segments> operands) {
+        if (operands.size() == 1)
+            return operands.get(0);
+        if (apart(epsilon, operands))
+            return concatenate(operands);
+        if (operands.size() == 2)
+            return selectUnion(combine(epsilon, operands.get(0), operands.get(1)));
+
+        // many operands are combined in a single sweep, at most as many as the sweep can handle
+        List<Segments> next = new ArrayList<>();
+        for (int i = 0; i < operands.size(); i += MultiIntersecter.MAX_INPUTS) {
+            List<Segments> chunk = operands.subList(i, Math.min(operands.size(), i + MultiIntersecter.MAX_INPUTS));
+            next.add(chunk.size() == 1 ? chunk.get(0) : selectUnionAll(combineAll(epsilon, chunk)));
+        }
+        return unionSegments(epsilon, next);
+    }
+
+    private static Segments intersectSegments(Epsilon epsilon, List<Segments> operands) {
+        // the smallest operands first, so the result shrinks as early as possible
+        List<Segments> sorted = new ArrayList<>(operands);
+        sorted.sort(Comparator.comparingDouble(PolyBool::boundsArea));
+
+        Segments result = sorted.get(0);
+        for (int i = 1; i < sorted.size(); i++) {
+            Segments operand = sorted.get(i);
+            if (!joinBounds(result).intersects(joinBounds(operand), epsilon))
+                return emptySegments();
+            result = selectIntersect(combine(epsilon, result, operand));
+            if (isEmpty(result))
+                return result;
+        }
+        return result;
+    }
+
+    private static Segments xorSegments(Epsilon epsilon, List<Segments> operands) {
+        // the smallest operands first, so the large ones are swept as few times as possible
+        List<Segments> sorted = new ArrayList<>(operands);
+        sorted.sort(Comparator.comparingInt(segments -> segments.segments.size()));
+        if (apart(epsilon, sorted))
+            return concatenate(sorted);
+
+        Segments result = sorted.get(0);
+        for (int i = 1; i < sorted.size(); i++)
+            result = selectXor(combine(epsilon, result, sorted.get(i)));
+        return result;
+    }
+
+    private static Segments differenceSegments(Epsilon epsilon, Segments first, List<Segments> others) {
+        List<Segments> subtracted = new ArrayList<>(others.size() + 1);
+        subtracted.add(first);
+        for (Segments other : others) {
+            if (joinBounds(first).intersects(joinBounds(other), epsilon))
+                subtracted.add(other);
+        }
+
+        if (subtracted.size() == 1)
+            return first;
+        if (subtracted.size() == 2)
+            return selectDifference(combine(epsilon, first, subtracted.get(1)));
+        if (subtracted.size() <= MultiIntersecter.MAX_INPUTS)
+            return selectDifferenceAll(combineAll(epsilon, subtracted));
+        return selectDifference(combine(epsilon, first, unionSegments(epsilon, subtracted.subList(1, subtracted.size()))));
+    }
+
+    private static final BoundingBox EVERYWHERE = new BoundingBox(
+            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+            Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY
+    );
+
+    private static Segments emptySegments() {
+        return new Segments(new SegmentBuffer(), false);
+    }
+
+    private static boolean isEmpty(Segments segments) {
+        return !segments.inverted && segments.segments.isEmpty();
+    }
+
+    private static double boundsArea(Segments segments) {
+        BoundingBox box = joinBounds(segments);
+        return (box.maxX - box.minX) * (box.maxY - box.minY);
+    }
+
+    private static boolean apart(Epsilon epsilon, List<Segments> operands) {
+        // true if no two operands can touch, so none of their segments needs to change
+        for (int i = 0; i < operands.size(); i++) {
+            if (operands.get(i).inverted)
+                return false;
+            for (int j = 0; j < i; j++) {
+                if (operands.get(i).bounds().intersects(operands.get(j).bounds(), epsilon))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private static Segments concatenate(List<Segments> operands) {
+        int size = 0;
+        for (Segments operand : operands)
+            size += operand.segments.size();
+        SegmentBuffer buffer = new SegmentBuffer(size);
+        for (Segments operand : operands) {
+            for (int i = 0; i < operand.segments.size(); i++)
+                buffer.add(operand.segments, i, operand.segments.fill(i) & SegmentBuffer.MY);
+        }
+        return new Segments(buffer, false);
+    }
+
+    // Overlay
+    public static Overlay overlay(Epsilon epsilon, MultiCombined combined, boolean byCount) {
+        return SegmentOverlay.overlay(combined.combined, epsilon, byCount);
+    }
+
+    public static Overlay overlay(Epsilon epsilon, List<Polygon> polygons) {
+        // every face of the arrangement, labelled with the inputs covering it
+        return overlay(epsilon, combineAllPolygons(epsilon, polygons), false);
+    }
+
+    public static Overlay coverage(Epsilon epsilon, List<Polygon> polygons) {
+        // the faces covered by the same number of inputs, merged together
+        return overlay(epsilon, combineAllPolygons(epsilon, polygons), true);
+    }
+
+    private static MultiCombined combineAllPolygons(Epsilon epsilon, List<Polygon> polygons) {
+        List<Segments> segments = new ArrayList<>(polygons.size());
+        for (Polygon polygon : polygons)
+            segments.add(segments(epsilon, polygon));
+        return combineAll(epsilon, segments);
+    }
+
+    // Spatial predicates
+    public static boolean intersects(Epsilon epsilon, Segments segments1, Segments segments2) {
+        if (!segments1.inverted && !segments2.inverted && !segments1.bounds().intersects(segments2.bounds(), epsilon))
+            return false;
+
+        return SpatialPredicates.intersects(
+                epsilon,
+                segments1.segments, segments1.inverted,
+                segments2.segments, segments2.inverted
+        );
+    }
+
+    public static boolean disjoint(Epsilon epsilon, Segments segments1, Segments segments2) {
+        return !intersects(epsilon, segments1, segments2);
+    }
+
+    public static boolean touches(Epsilon epsilon, Segments segments1, Segments segments2) {
+        if (!segments1.inverted && !segments2.inverted && !segments1.bounds().intersects(segments2.bounds(), epsilon))
+            return false;
+
+        return SpatialPredicates.touches(
+                epsilon,
+                segments1.segments, segments1.inverted,
+                segments2.segments, segments2.inverted
+        );
+    }
+
+    public static boolean contains(Epsilon epsilon, Segments segments1, Segments segments2) { // segments2 inside segments1
+        if (!segments1.inverted && !segments2.inverted && !segments1.bounds().contains(segments2.bounds(), epsilon))
+            return false;
+
+        return SpatialPredicates.contains(
+                epsilon,
+                segments1.segments, segments1.inverted,
+                segments2.segments, segments2.inverted
+        );
+    }
+
+    public static boolean intersects(Epsilon epsilon, Polygon poly1, Polygon poly2) {
+        return intersects(epsilon, segments(epsilon, poly1), segments(epsilon, poly2));
+    }
+
+    public static boolean disjoint(Epsilon epsilon, Polygon poly1, Polygon poly2) {
+        return disjoint(epsilon, segments(epsilon, poly1), segments(epsilon, poly2));
+    }
+
+    public static boolean touches(Epsilon epsilon, Polygon poly1, Polygon poly2) {
+        return touches(epsilon, segments(epsilon, poly1), segments(epsilon, poly2));
+    }
+
+    public static boolean contains(Epsilon epsilon, Polygon poly1, Polygon poly2) { // poly2 inside poly1
+        return contains(epsilon, segments(epsilon, poly1), segments(epsilon, poly2));
+    }
+
+    public static void pointsInside(Epsilon epsilon, Polygon poly, double[] xs, double[] ys, boolean[] inside) {
+        // tags many points at once, inside[i] is whether (xs[i], ys[i]) is inside the polygon
+        // the points are tested against the regions in batches, vectorized on Java 17 and later
+        if (xs.length != inside.length || ys.length != inside.length)
+            throw new IllegalArgumentException("PolyBool: The coordinates and the results must have the same length");
+        epsilon.pointsInsideRegions(xs, ys, poly.getRegions(), inside);
+        if (poly.isInverted()) {
+            for (int i = 0; i < inside.length; i++)
+                inside[i] = !inside[i];
+        }
+    }
+
+    // Spatial join
+    public static void join(Epsilon epsilon, List<Polygon> left, List<Polygon> right, JoinSink sink) {
+        // intersects every polygon of `left` with every polygon of `right` whose bounding box
+        // overlaps, and reports the pairs with a non-empty intersection
+        join(epsilon, left, right, (segments1, segments2) -> {
+            Segments result = selectIntersect(combine(epsilon, segments1, segments2));
+            if (result.segments.isEmpty() && !result.inverted)
+                return null;
+            return polygon(epsilon, result);
+        }, sink);
+    }
+
+    public static void join(Epsilon epsilon, List<Polygon> left, List<Polygon> right, Relation relation, JoinSink sink) {
+        // reports the pairs that satisfy `relation`, with a null polygon
+        join(epsilon, left, right, (segments1, segments2) -> {
+            boolean related;
+            switch (relation) {
+                case INTERSECTS:
+                    related = intersects(epsilon, segments1, segments2);
+                    break;
+                case TOUCHES:
+                    related = touches(epsilon, segments1, segments2);
+                    break;
+                case CONTAINS:
+                    related = contains(epsilon, segments1, segments2);
+                    break;
+                default:
+                    related = contains(epsilon, segments2, segments1);
+                    break;
+            }
+            return related ? NO_POLYGON : null;
+        }, sink);
+    }
+
+    private static void join(Epsilon epsilon, List<Polygon> left, List<Polygon> right,
+                             BiFunction<Segments, Segments, Polygon> evaluate, JoinSink sink) {
+        // the candidate pairs are found from the points of the polygons, so a polygon is only
+        // swept once it has a candidate: a left polygon keeps its segments for its own pairs, and
+        // the right polygons, shared by many of them, go through a cache with a bounded weight
+        // (the one of the options, or one for this join only)
+        SegmentsCache cache = epsilon.options().getSegmentsCache() != null
+                ? epsilon.options().getSegmentsCache()
+                : new SegmentsCache(JOIN_CACHE_WEIGHT);
+
+        // inverted polygons extend to infinity, so they are candidates for everything
+        List<BoundingBox> boxes = new ArrayList<>(right.size());
+        for (Polygon polygon : right)
+            boxes.add(joinBounds(polygon));
+        PackedRTree tree = new PackedRTree(boxes);
+
+        // the left polygons are taken from left to right, so the ones evaluated one after the
+        // other mostly share the same right polygons, while they are still in the cache
+        BoundingBox[] leftBoxes = new BoundingBox[left.size()];
+        Integer[] order = new Integer[left.size()];
+        for (int i = 0; i < leftBoxes.length; i++) {
+            leftBoxes[i] = joinBounds(left.get(i));
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> leftBoxes[i].minX));
+
+        IntStream.range(0, order.length).parallel().forEach(k -> {
+            int i = order[k];
+            BoundingBox bounds1 = leftBoxes[i];
+            Segments[] segments1 = new Segments[1];
+            tree.search(bounds1, epsilon.epsilonAt(bounds1.magnitude()), j -> {
+                if (segments1[0] == null)
+                    segments1[0] = segments(epsilon, left.get(i));
+                Polygon polygon2 = right.get(j);
+                Segments segments2 = cache.segments(epsilon, polygon2, () -> calculateSegments(epsilon, polygon2));
+                Polygon result = evaluate.apply(segments1[0], segments2);
+                if (result == null)
+                    return;
+                synchronized (sink) {
+                    sink.pair(i, j, result == NO_POLYGON ? null : result);
+                }
+            });
+        });
+    }
+
+    private static BoundingBox joinBounds(Polygon polygon) {
+        // the points of the polygon, which hold all of its segments
+        if (polygon.isInverted())
+            return EVERYWHERE;
+        return BoundingBox.ofRegions(polygon.getRegions());
+    }
+
+    private static BoundingBox joinBounds(Segments segments) {
+        if (segments.inverted)
+            return EVERYWHERE;
+        return segments.bounds();
+    }
+
+    // Polyline clipping
+    public static List<ClippedLine> clipLines(Epsilon epsilon, Segments segments, List<List<double[]>> lines) {
+        return new PolylineIntersecter(epsilon).calculate(segments.segments, segments.inverted, lines);
+    }
+
+    public static List<ClippedLine> clipLines(Epsilon epsilon, Polygon poly, List<List<double[]>> lines) {
+        return clipLines(epsilon, segments(epsilon, poly), lines);
+    }
+
+    public static ClippedLine clipLine(Epsilon epsilon, Polygon poly, List<double[]> line) {
+        return clipLines(epsilon, poly, Collections.singletonList(line)).get(0);
+    }
+
     // Import export
     // GeoJSON converters
     public static Polygon polygonFromGeoJSON(Epsilon epsilon, Geometry<?> geojson) {
@@ -141,7 +876,7 @@ public final class PolyBool {
     }
 
     public static Geometry<?> polygonToGeoJSON(Epsilon epsilon, Polygon poly) {
-        return GeoJSON.fromPolygon(epsilon, polygon(epsilon, segments(epsilon, poly)));
+        return GeoJSON.fromPolygon(epsilon, poly);
     }
 
     private PolyBool() {
@@ -0,0 +1,86 @@
+package com.menecats.polybool;
+
+public final class PolyBoolOptions {
+    // how PolyBool sweeps the polygons given with an Epsilon, see Epsilon.options
+    // immutable, every `with` method returns a copy, so the same options can be shared between
+    // threads and callers without one of them changing the others
+    public static final PolyBoolOptions DEFAULT = new PolyBoolOptions(null, false, false, null, 0);
+
+    private final SegmentsCache segmentsCache;
+    private final boolean monotoneChains;
+    private final boolean parallelSweep;
+    private final SlowOperationRecorder slowOperationRecorder;
+    private final double simplifyTolerance;
+
+    private PolyBoolOptions(SegmentsCache segmentsCache, boolean monotoneChains, boolean parallelSweep,
+                            SlowOperationRecorder slowOperationRecorder, double simplifyTolerance) {
+        this.segmentsCache = segmentsCache;
+        this.monotoneChains = monotoneChains;
+        this.parallelSweep = parallelSweep;
+        this.slowOperationRecorder = slowOperationRecorder;
+        this.simplifyTolerance = simplifyTolerance;
+    }
+
+    public PolyBoolOptions withSegmentsCache(SegmentsCache cache) {
+        // when set, `segments` reuses the segments of polygons it has already seen, null disables it
+        return new PolyBoolOptions(cache, monotoneChains, parallelSweep, slowOperationRecorder, simplifyTolerance);
+    }
+
+    public SegmentsCache getSegmentsCache() {
+        return segmentsCache;
+    }
+
+    public PolyBoolOptions withMonotoneChains(boolean enabled) {
+        // when enabled, `segments` splits the regions in monotone chains, and skips the intersection
+        // tests between edges of the same chain, and between chains that are far apart
+        // this pays off for densely digitized boundaries, like rivers and coastlines
+        return new PolyBoolOptions(segmentsCache, enabled, parallelSweep, slowOperationRecorder, simplifyTolerance);
+    }
+
+    public boolean isMonotoneChains() {
+        return monotoneChains;
+    }
+
+    public PolyBoolOptions withParallelSweep(boolean enabled) {
+        // when enabled, `segments` and `combine` split large inputs in vertical slabs, sweep them in
+        // parallel on the common ForkJoinPool, and join the edges cut at their boundaries back
+        // the monotone chains are not used within the slabs
+        return new PolyBoolOptions(segmentsCache, monotoneChains, enabled, slowOperationRecorder, simplifyTolerance);
+    }
+
+    public boolean isParallelSweep() {
+        return parallelSweep;
+    }
+
+    public PolyBoolOptions withSlowOperationRecorder(SlowOperationRecorder recorder) {
+        // when set, the sweeps of `segments` and `combine` that go over its thresholds are saved as
+        // recordings, to replay them offline, null disables it
+        return new PolyBoolOptions(segmentsCache, monotoneChains, parallelSweep, recorder, simplifyTolerance);
+    }
+
+    public SlowOperationRecorder getSlowOperationRecorder() {
+        return slowOperationRecorder;
+    }
+
+    public PolyBoolOptions withSimplifyTolerance(double tolerance) {
+        // when positive, `segments` and the convex fast path of the operations simplify the
+        // polygons with this tolerance first (see `PolyBool.simplify`), 0 disables it
+        PolyBool.checkTolerance(tolerance);
+        return new PolyBoolOptions(segmentsCache, monotoneChains, parallelSweep, slowOperationRecorder, tolerance);
+    }
+
+    public double getSimplifyTolerance() {
+        return simplifyTolerance;
+    }
+
+    @Override
+    public String toString() {
+        return "PolyBoolOptions{" +
+                "segmentsCache=" + segmentsCache +
+                ", monotoneChains=" + monotoneChains +
+                ", parallelSweep=" + parallelSweep +
+                ", slowOperationRecorder=" + slowOperationRecorder +
+                ", simplifyTolerance=" + simplifyTolerance +
+                '}';
+    }
+}
@@ -0,0 +1,18 @@
+package com.menecats.polybool;
+
+public interface PolygonSink {
+    // receives the regions of a polygon one at a time, as soon as they are complete
+    // a ring is reported as `beginRing`, one `vertex` for each of its points, and `endRing`
+
+    default void beginPolygon(boolean inverted) {
+    }
+
+    void beginRing();
+
+    void vertex(double x, double y);
+
+    void endRing();
+
+    default void endPolygon() {
+    }
+}
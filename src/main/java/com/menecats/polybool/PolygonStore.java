@@ -0,0 +1,364 @@
+package com.menecats.polybool;
+
+import com.menecats.polybool.internal.BoundingBox;
+import com.menecats.polybool.internal.MappedFile;
+import com.menecats.polybool.models.Polygon;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import static com.menecats.polybool.helpers.PolyBoolHelper.point;
+
+public final class PolygonStore implements Closeable {
+    // a collection of polygons written once to a file, and read back through a memory mapping, so
+    // it doesn't have to fit in the heap
+    //
+    // the file holds a packed Hilbert R-tree over the bounding boxes of the polygons, followed by
+    // the polygons themselves, in the order of the tree:
+    //
+    //   header      magic, version, count, nodes, levels, (padding), end of every level
+    //   tree        minX, minY, maxX, maxY of every node, then the index of every node
+    //               (leaves: the polygon, upper levels: the first child)
+    //   directory   position of the record of every polygon, in the original order
+    //   records     regions, inverted, points of every region, then x and y of every point
+    //
+    // everything is big endian, and every long and double is aligned to 8 bytes
+    private static final int MAGIC = 0x50424C53; // "PBLS"
+    private static final int VERSION = 1;
+    private static final int NODE_SIZE = 16;
+
+    private final MappedFile file;
+    private final int count;
+    private final int[] levelEnds;
+    private final long treeBoxes;
+    private final long treeIndices;
+    private final long directory;
+
+    private PolygonStore(MappedFile file) {
+        this.file = file;
+        if (file.size() < 24 || file.getInt(0) != MAGIC)
+            throw new IllegalArgumentException("PolyBool: Not a polygon store");
+        if (file.getInt(4) != VERSION)
+            throw new IllegalArgumentException("PolyBool: Unsupported polygon store version " + file.getInt(4));
+
+        this.count = file.getInt(8);
+        int nodes = file.getInt(12);
+        this.levelEnds = new int[file.getInt(16)];
+        for (int i = 0; i < this.levelEnds.length; i++)
+            this.levelEnds[i] = file.getInt(24 + 4L * i);
+
+        this.treeBoxes = align(24 + 4L * this.levelEnds.length);
+        this.treeIndices = this.treeBoxes + 32L * nodes;
+        this.directory = align(this.treeIndices + 4L * nodes);
+    }
+
+    public static PolygonStore open(Path path) throws IOException {
+        MappedFile file = MappedFile.open(path);
+        try {
+            return new PolygonStore(file);
+        } catch (RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    public static void write(Path path, List<Polygon> polygons) throws IOException {
+        int n = polygons.size();
+
+        BoundingBox[] boxes = new BoundingBox[n];
+        BoundingBox extent = BoundingBox.EMPTY;
+        for (int i = 0; i < n; i++) {
+            Polygon polygon = polygons.get(i);
+            // inverted polygons extend to infinity, so every query finds them
+            boxes[i] = polygon.isInverted()
+                    ? new BoundingBox(Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY)
+                    : BoundingBox.ofRegions(polygon.getRegions());
+            if (!polygon.isInverted())
+                extent = extent.union(boxes[i]);
+        }
+
+        // sort the polygons along a Hilbert curve through the centers of their boxes, the index
+        // goes in the lower bits, so a plain sort of the keys gives the order
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++)
+            keys[i] = (hilbert(extent, boxes[i]) << 32) | i;
+        Arrays.sort(keys);
+
+        // count the nodes of every level
+        int levels = 1;
+        int nodes = n;
+        for (int c = n; c > 1; levels++) {
+            c = (c + NODE_SIZE - 1) / NODE_SIZE;
+            nodes += c;
+        }
+
+        double[] treeBoxes = new double[nodes * 4];
+        int[] treeIndices = new int[nodes];
+        int[] levelEnds = new int[levels];
+        for (int i = 0; i < n; i++) {
+            int index = (int) keys[i];
+            BoundingBox box = boxes[index];
+            treeBoxes[i * 4] = box.minX;
+            treeBoxes[i * 4 + 1] = box.minY;
+            treeBoxes[i * 4 + 2] = box.maxX;
+            treeBoxes[i * 4 + 3] = box.maxY;
+            treeIndices[i] = index;
+        }
+        levelEnds[0] = n;
+
+        int pos = n;
+        for (int level = 1, start = 0; level < levels; level++) {
+            int end = levelEnds[level - 1];
+            for (int child = start; child < end; child += NODE_SIZE) {
+                double minX = Double.POSITIVE_INFINITY;
+                double minY = Double.POSITIVE_INFINITY;
+                double maxX = Double.NEGATIVE_INFINITY;
+                double maxY = Double.NEGATIVE_INFINITY;
+                for (int c = child; c < Math.min(child + NODE_SIZE, end); c++) {
+                    minX = Math.min(minX, treeBoxes[c * 4]);
+                    minY = Math.min(minY, treeBoxes[c * 4 + 1]);
+                    maxX = Math.max(maxX, treeBoxes[c * 4 + 2]);
+                    maxY = Math.max(maxY, treeBoxes[c * 4 + 3]);
+                }
+                treeBoxes[pos * 4] = minX;
+                treeBoxes[pos * 4 + 1] = minY;
+                treeBoxes[pos * 4 + 2] = maxX;
+                treeBoxes[pos * 4 + 3] = maxY;
+                treeIndices[pos++] = child;
+            }
+            levelEnds[level] = pos;
+            start = end;
+        }
+
+        // lay out the records in the order of the leaves, so polygons found by the same query are
+        // close together in the file
+        long treeBoxesPos = align(24 + 4L * levels);
+        long directoryPos = align(treeBoxesPos + 32L * nodes + 4L * nodes);
+        long[] records = new long[n];
+        long recordPos = directoryPos + 8L * n;
+        for (int i = 0; i < n; i++) {
+            int index = treeIndices[i];
+            records[index] = recordPos;
+            recordPos += recordSize(polygons.get(index));
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(n);
+            out.writeInt(nodes);
+            out.writeInt(levels);
+            out.writeInt(0);
+            for (int end : levelEnds)
+                out.writeInt(end);
+            pad(out, treeBoxesPos);
+
+            for (double v : treeBoxes)
+                out.writeDouble(v);
+            for (int index : treeIndices)
+                out.writeInt(index);
+            pad(out, directoryPos);
+
+            for (long record : records)
+                out.writeLong(record);
+
+            for (int i = 0; i < n; i++) {
+                Polygon polygon = polygons.get(treeIndices[i]);
+                List<List<double[]>> regions = polygon.getRegions();
+                out.writeInt(regions.size());
+                out.writeInt(polygon.isInverted() ? 1 : 0);
+                for (List<double[]> region : regions)
+                    out.writeInt(region.size());
+                if (regions.size() % 2 != 0)
+                    out.writeInt(0);
+                for (List<double[]> region : regions) {
+                    for (double[] pt : region) {
+                        out.writeDouble(pt[0]);
+                        out.writeDouble(pt[1]);
+                    }
+                }
+            }
+        }
+    }
+
+    private static long recordSize(Polygon polygon) {
+        long size = align(8 + 4L * polygon.getRegions().size());
+        for (List<double[]> region : polygon.getRegions())
+            size += 16L * region.size();
+        return size;
+    }
+
+    private static long align(long pos) {
+        return (pos + 7) & ~7L;
+    }
+
+    private static void pad(DataOutputStream out, long pos) throws IOException {
+        while (out.size() < pos)
+            out.writeByte(0);
+    }
+
+    private static long hilbert(BoundingBox extent, BoundingBox box) {
+        // position of the center of `box` along a Hilbert curve over a 65536 x 65536 grid
+        int n = 1 << 16;
+        double width = extent.maxX - extent.minX;
+        double height = extent.maxY - extent.minY;
+        int x = 0;
+        int y = 0;
+        if (!extent.isEmpty() && !box.isEmpty() && !Double.isInfinite(box.minX)) {
+            x = width > 0 ? (int) Math.min(n - 1, ((box.minX / 2 + box.maxX / 2) - extent.minX) / width * (n - 1)) : 0;
+            y = height > 0 ? (int) Math.min(n - 1, ((box.minY / 2 + box.maxY / 2) - extent.minY) / height * (n - 1)) : 0;
+        }
+
+        long d = 0;
+        for (int s = n / 2; s > 0; s /= 2) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            d += (long) s * s * ((3 * rx) ^ ry);
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = n - 1 - x;
+                    y = n - 1 - y;
+                }
+                int t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return d;
+    }
+
+    public int size() {
+        return this.count;
+    }
+
+    public Polygon get(int index) {
+        // the regions are views over the mapped file, so the polygon holds none of its points on
+        // the heap; every read of a point returns a new array with a copy of its coordinates
+        if (index < 0 || index >= this.count)
+            throw new IndexOutOfBoundsException("PolyBool: Polygon " + index + " is not in the store");
+
+        long record = this.file.getLong(this.directory + 8L * index);
+        int regions = this.file.getInt(record);
+        boolean inverted = this.file.getInt(record + 4) != 0;
+
+        int[] lengths = new int[regions];
+        long[] starts = new long[regions];
+        long pos = align(record + 8 + 4L * regions);
+        for (int r = 0; r < regions; r++) {
+            lengths[r] = this.file.getInt(record + 8 + 4L * r);
+            starts[r] = pos;
+            pos += 16L * lengths[r];
+        }
+
+        return new Polygon(new AbstractList<List<double[]>>() {
+            @Override
+            public List<double[]> get(int r) {
+                return new Region(starts[r], lengths[r]);
+            }
+
+            @Override
+            public int size() {
+                return regions;
+            }
+        }, inverted);
+    }
+
+    private final class Region extends AbstractList<double[]> {
+        private final long start;
+        private final int length;
+
+        Region(long start, int length) {
+            this.start = start;
+            this.length = length;
+        }
+
+        @Override
+        public double[] get(int index) {
+            if (index < 0 || index >= this.length)
+                throw new IndexOutOfBoundsException("PolyBool: Point " + index + " is not in the region");
+            long pos = this.start + 16L * index;
+            return point(file.getDouble(pos), file.getDouble(pos + 8));
+        }
+
+        @Override
+        public int size() {
+            return this.length;
+        }
+    }
+
+    public void search(double minX, double minY, double maxX, double maxY, IntConsumer visit) {
+        // calls `visit` with the index of every polygon whose bounding box overlaps the query box
+        if (this.count == 0)
+            return;
+
+        int[] stack = new int[32];
+        int top = 0;
+        stack[top++] = this.levelEnds[this.levelEnds.length - 1] - 1;
+        stack[top++] = this.levelEnds.length - 1;
+
+        while (top > 0) {
+            int level = stack[--top];
+            int pos = stack[--top];
+
+            long box = this.treeBoxes + 32L * pos;
+            if (minX > this.file.getDouble(box + 16) || this.file.getDouble(box) > maxX ||
+                    minY > this.file.getDouble(box + 24) || this.file.getDouble(box + 8) > maxY)
+                continue;
+
+            int index = this.file.getInt(this.treeIndices + 4L * pos);
+            if (level == 0) {
+                visit.accept(index);
+                continue;
+            }
+
+            int end = Math.min(index + NODE_SIZE, this.levelEnds[level - 1]);
+            if (top + 2 * (end - index) > stack.length)
+                stack = Arrays.copyOf(stack, Math.max(stack.length * 2, top + 2 * (end - index)));
+            for (int child = end - 1; child >= index; child--) {
+                stack[top++] = child;
+                stack[top++] = level - 1;
+            }
+        }
+    }
+
+    public List<Polygon> query(double minX, double minY, double maxX, double maxY) {
+        // the polygons whose bounding box overlaps the query box, read from the file only when
+        // they are accessed
+        int[][] found = {new int[16]};
+        int[] size = {0};
+        this.search(minX, minY, maxX, maxY, index -> {
+            if (size[0] == found[0].length)
+                found[0] = Arrays.copyOf(found[0], size[0] * 2);
+            found[0][size[0]++] = index;
+        });
+
+        int[] indices = found[0];
+        int count = size[0];
+        return new AbstractList<Polygon>() {
+            @Override
+            public Polygon get(int i) {
+                if (i < 0 || i >= count)
+                    throw new IndexOutOfBoundsException("PolyBool: Result " + i + " is not in the query");
+                return PolygonStore.this.get(indices[i]);
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.file.close();
+    }
+}
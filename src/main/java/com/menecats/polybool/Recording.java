@@ -0,0 +1,247 @@
+package com.menecats.polybool;
+
+import com.menecats.polybool.internal.SegmentBuffer;
+import com.menecats.polybool.models.Polygon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public final class Recording {
+    // the exact inputs of a sweep, as captured by a SlowOperationRecorder, to run it again offline
+    // the coordinates are stored as their bits, so the replay sees the same doubles
+    //
+    //     java -cp polybool.jar com.menecats.polybool.Recording <file or directory>...
+    //
+    // replays every recording and prints the time it takes now, next to the recorded one
+    private static final int MAGIC = 0x50425243; // "PBRC"
+    private static final int VERSION = 1;
+    private static final int REPLAYS = 5;
+
+    public enum Operation {
+        SEGMENTS, // PolyBool.segments on a polygon
+        COMBINE // PolyBool.combine on two lists of segments
+    }
+
+    private final Operation operation;
+    private final Epsilon epsilon;
+    private final long nanos; // the time of the recorded operation
+    private final int segments; // the segments it produced
+
+    // SEGMENTS
+    private final Polygon polygon;
+
+    // COMBINE
+    private final SegmentBuffer segments1;
+    private final boolean inverted1;
+    private final SegmentBuffer segments2;
+    private final boolean inverted2;
+
+    private Recording(Operation operation, Epsilon epsilon, long nanos, int segments, Polygon polygon,
+                      SegmentBuffer segments1, boolean inverted1, SegmentBuffer segments2, boolean inverted2) {
+        this.operation = operation;
+        this.epsilon = epsilon;
+        this.nanos = nanos;
+        this.segments = segments;
+        this.polygon = polygon;
+        this.segments1 = segments1;
+        this.inverted1 = inverted1;
+        this.segments2 = segments2;
+        this.inverted2 = inverted2;
+    }
+
+    static Recording ofSegments(Epsilon epsilon, Polygon polygon, long nanos, int segments) {
+        return new Recording(Operation.SEGMENTS, epsilon, nanos, segments, polygon, null, false, null, false);
+    }
+
+    static Recording ofCombine(Epsilon epsilon, SegmentBuffer segments1, boolean inverted1,
+                               SegmentBuffer segments2, boolean inverted2, long nanos, int segments) {
+        return new Recording(Operation.COMBINE, epsilon, nanos, segments, null, segments1, inverted1, segments2, inverted2);
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public Epsilon getEpsilon() {
+        return epsilon;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public int getSegments() {
+        return segments;
+    }
+
+    public long replay() {
+        return this.replay(PolyBoolOptions.DEFAULT);
+    }
+
+    public long replay(PolyBoolOptions options) {
+        // runs the operation again, sweeping as `options` say, and returns its time
+        // the recorder, the segments cache and the simplification are skipped (the recorded
+        // polygon is the one that was swept, already simplified)
+        long start = System.nanoTime();
+        if (operation == Operation.SEGMENTS)
+            PolyBool.sweepSegments(epsilon, options, polygon);
+        else
+            PolyBool.sweepCombine(epsilon, options, segments1, inverted1, segments2, inverted2);
+        return System.nanoTime() - start;
+    }
+
+    public void write(Path file) throws IOException {
+        try (OutputStream stream = Files.newOutputStream(file)) {
+            write(stream);
+        }
+    }
+
+    public void write(OutputStream stream) throws IOException {
+        // leaves `stream` open
+        GZIPOutputStream gzip = new GZIPOutputStream(stream);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(gzip));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(operation.ordinal());
+        out.writeUTF(epsilon.getClass().getName());
+        out.writeDouble(epsilon.epsilon());
+        out.writeLong(nanos);
+        out.writeInt(segments);
+        if (operation == Operation.SEGMENTS) {
+            out.writeBoolean(polygon.isInverted());
+            out.writeInt(polygon.getRegions().size());
+            for (List<double[]> region : polygon.getRegions()) {
+                out.writeInt(region.size());
+                for (double[] pt : region) {
+                    out.writeDouble(pt[0]);
+                    out.writeDouble(pt[1]);
+                }
+            }
+        } else {
+            writeSegments(out, segments1, inverted1);
+            writeSegments(out, segments2, inverted2);
+        }
+        out.flush();
+        gzip.finish();
+    }
+
+    private static void writeSegments(DataOutputStream out, SegmentBuffer segments, boolean inverted) throws IOException {
+        out.writeBoolean(inverted);
+        out.writeInt(segments.size());
+        for (int i = 0; i < segments.size(); i++) {
+            out.writeDouble(segments.x1(i));
+            out.writeDouble(segments.y1(i));
+            out.writeDouble(segments.x2(i));
+            out.writeDouble(segments.y2(i));
+            out.writeByte(segments.fill(i));
+        }
+    }
+
+    public static Recording read(Path file) throws IOException {
+        try (InputStream stream = Files.newInputStream(file)) {
+            return read(stream);
+        }
+    }
+
+    public static Recording read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(stream)));
+        if (in.readInt() != MAGIC)
+            throw new IOException("PolyBool: Not a recording");
+        int version = in.readUnsignedByte();
+        if (version != VERSION)
+            throw new IOException("PolyBool: Unsupported recording version " + version);
+        int operation = in.readUnsignedByte();
+        if (operation >= Operation.values().length)
+            throw new IOException("PolyBool: Unknown recorded operation " + operation);
+        Epsilon epsilon = epsilon(in.readUTF(), in.readDouble());
+        long nanos = in.readLong();
+        int segments = in.readInt();
+
+        if (Operation.values()[operation] == Operation.SEGMENTS) {
+            boolean inverted = in.readBoolean();
+            int count = in.readInt();
+            List<List<double[]>> regions = new ArrayList<>(count);
+            for (int r = 0; r < count; r++) {
+                int points = in.readInt();
+                List<double[]> region = new ArrayList<>(points);
+                for (int p = 0; p < points; p++)
+                    region.add(new double[]{in.readDouble(), in.readDouble()});
+                regions.add(region);
+            }
+            return ofSegments(epsilon, new Polygon(regions, inverted), nanos, segments);
+        }
+
+        boolean inverted1 = in.readBoolean();
+        SegmentBuffer segments1 = readSegments(in);
+        boolean inverted2 = in.readBoolean();
+        SegmentBuffer segments2 = readSegments(in);
+        return ofCombine(epsilon, segments1, inverted1, segments2, inverted2, nanos, segments);
+    }
+
+    private static SegmentBuffer readSegments(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        SegmentBuffer segments = new SegmentBuffer(count);
+        for (int i = 0; i < count; i++)
+            segments.add(in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble(), in.readUnsignedByte());
+        return segments;
+    }
+
+    private static Epsilon epsilon(String type, double value) throws IOException {
+        try {
+            return Class.forName(type).asSubclass(Epsilon.class).getConstructor(double.class).newInstance(value);
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IOException("PolyBool: Cannot create the recorded epsilon " + type, e);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: Recording <file or directory>...");
+            System.exit(2);
+        }
+
+        List<Path> files = new ArrayList<>();
+        for (String arg : args) {
+            Path path = Paths.get(arg);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> list = Files.list(path)) {
+                    files.addAll(list.filter(Files::isRegularFile).sorted().collect(Collectors.toList()));
+                }
+            } else {
+                files.add(path);
+            }
+        }
+
+        for (Path file : files) {
+            Recording recording = read(file);
+            long[] times = new long[REPLAYS];
+            for (int i = 0; i < REPLAYS; i++)
+                times[i] = recording.replay();
+            Arrays.sort(times);
+            System.out.printf(
+                    "%s: %s, %d segments, recorded %.3f ms, replayed %.3f ms (best %.3f ms)%n",
+                    file.getFileName(),
+                    recording.getOperation().name().toLowerCase(),
+                    recording.getSegments(),
+                    recording.getNanos() / 1e6,
+                    times[REPLAYS / 2] / 1e6,
+                    times[0] / 1e6
+            );
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.menecats.polybool;
+
+import com.menecats.polybool.internal.ExactArithmetic;
+
+import java.util.List;
+
+import static com.menecats.polybool.helpers.PolyBoolHelper.point;
+import static com.menecats.polybool.internal.ExactArithmetic.DET_ERROR_BOUND;
+import static com.menecats.polybool.internal.ExactArithmetic.EPSILON;
+
+public class RobustEpsilon extends Epsilon {
+    // an epsilon relative to the magnitude of the coordinates, instead of a fixed distance, so the
+    // same value works for tiny and for huge coordinates
+    //
+    // the orientation tests are first evaluated with doubles, and only when the result is too
+    // close to the tolerance for the rounding errors to be ruled out, they are evaluated again
+    // with exact arithmetic, so they always give consistent answers
+    // with an epsilon of 0 the tests are exact
+
+    public RobustEpsilon() {
+        this(1e-12);
+    }
+
+    public RobustEpsilon(double eps) {
+        super(Math.abs(eps));
+    }
+
+    @Override
+    public double epsilonAt(double magnitude) {
+        return this.eps * magnitude;
+    }
+
+    private double tolerance(double[] p1, double[] p2) {
+        // relative to the magnitude of the points, not of the single coordinates, or a coordinate
+        // near 0 would have to be exactly the same
+        return this.epsilonAt(Math.max(
+                Math.max(Math.abs(p1[0]), Math.abs(p1[1])),
+                Math.max(Math.abs(p2[0]), Math.abs(p2[1]))
+        ));
+    }
+
+    private int side(double[] pt, double[] left, double[] right) {
+        // 1 if pt is above the line left->right, -1 if below, 0 if on it within tolerance
+        double tolerance = this.determinantTolerance(
+                right[0], left[0], pt[1], left[1],
+                right[1], left[1], pt[0], left[0]
+        );
+        if (this.compareDeterminant(
+                right[0], left[0], pt[1], left[1],
+                right[1], left[1], pt[0], left[0],
+                -tolerance
+        ) > 0)
+            return 1;
+        if (this.compareDeterminant(
+                right[0], left[0], pt[1], left[1],
+                right[1], left[1], pt[0], left[0],
+                tolerance
+        ) < 0)
+            return -1;
+        return 0;
+    }
+
+    private int compareDeterminant(double a, double b, double c, double d,
+                                   double e, double f, double g, double h,
+                                   double k) {
+        // the sign of `(a - b) * (c - d) - (e - f) * (g - h) + k`
+        double t1 = (a - b) * (c - d);
+        double t2 = (e - f) * (g - h);
+        double value = t1 - t2 + k;
+        double bound = DET_ERROR_BOUND * (Math.abs(t1) + Math.abs(t2)) + 2 * EPSILON * Math.abs(value);
+        if (value > bound)
+            return 1;
+        if (value < -bound)
+            return -1;
+        return ExactArithmetic.signOfDeterminant(a, b, c, d, e, f, g, h, k);
+    }
+
+    private double determinantTolerance(double a, double b, double c, double d,
+                                        double e, double f, double g, double h) {
+        // the determinant is compared to the size of its terms, that is, to the sine of the angle
+        // between the two vectors times their lengths
+        return this.eps * (Math.abs((a - b) * (c - d)) + Math.abs((e - f) * (g - h)));
+    }
+
+    @Override
+    public boolean pointAboveOrOnLine(double[] pt, double[] left, double[] right) {
+        // (Bx - Ax) * (Cy - Ay) - (By - Ay) * (Cx - Ax) >= -tolerance
+        double tolerance = this.determinantTolerance(
+                right[0], left[0], pt[1], left[1],
+                right[1], left[1], pt[0], left[0]
+        );
+        return this.compareDeterminant(
+                right[0], left[0], pt[1], left[1],
+                right[1], left[1], pt[0], left[0],
+                tolerance
+        ) >= 0;
+    }
+
+    @Override
+    public boolean pointBetween(double[] p, double[] left, double[] right) {
+        // p must be collinear with left->right
+        // returns false if p == left, p == right, or left == right
+        if (this.pointsSame(p, left) || this.pointsSame(p, right))
+            return false;
+        double d_py_ly = p[1] - left[1];
+        double d_rx_lx = right[0] - left[0];
+        double d_px_lx = p[0] - left[0];
+        double d_ry_ly = right[1] - left[1];
+
+        double dot = d_px_lx * d_rx_lx + d_py_ly * d_ry_ly;
+        // dot < 0 is p is to the left of 'left'
+        if (dot < 0)
+            return false;
+        double sqlen = d_rx_lx * d_rx_lx + d_ry_ly * d_ry_ly;
+        // dot <= sqlen is p is to the left of 'right'
+        return dot <= sqlen;
+    }
+
+    @Override
+    public boolean pointsSameX(double[] p1, double[] p2) {
+        return Math.abs(p1[0] - p2[0]) <= this.tolerance(p1, p2);
+    }
+
+    @Override
+    public boolean pointsSameY(double[] p1, double[] p2) {
+        return Math.abs(p1[1] - p2[1]) <= this.tolerance(p1, p2);
+    }
+
+    @Override
+    public boolean pointsCollinear(double[] pt1, double[] pt2, double[] pt3) {
+        // |(pt1 - pt2) x (pt2 - pt3)| <= tolerance
+        double tolerance = this.determinantTolerance(
+                pt1[0], pt2[0], pt2[1], pt3[1],
+                pt2[0], pt3[0], pt1[1], pt2[1]
+        );
+        return this.compareDeterminant(
+                pt1[0], pt2[0], pt2[1], pt3[1],
+                pt2[0], pt3[0], pt1[1], pt2[1],
+                -tolerance
+        ) <= 0 && this.compareDeterminant(
+                pt1[0], pt2[0], pt2[1], pt3[1],
+                pt2[0], pt3[0], pt1[1], pt2[1],
+                tolerance
+        ) >= 0;
+    }
+
+    @Override
+    public EpsilonIntersectionResult linesIntersect(double[] a0, double[] a1, double[] b0, double[] b1) {
+        // same results as Epsilon.linesIntersect, but the lines are parallel when the angle between
+        // them is within tolerance, and the intersection point is on an endpoint when that endpoint
+        // is on the other line, by the orientation test, or the same point as the intersection
+        // deciding it from the computed point alone misses the endpoints near 0, where the point
+        // is off by more than the tolerance of its tiny coordinates, and the sweep would divide a
+        // segment at its own endpoint
+        double tolerance = this.determinantTolerance(
+                a1[0], a0[0], b1[1], b0[1],
+                a1[1], a0[1], b1[0], b0[0]
+        );
+        boolean parallel = this.compareDeterminant(
+                a1[0], a0[0], b1[1], b0[1],
+                a1[1], a0[1], b1[0], b0[0],
+                -tolerance
+        ) <= 0 && this.compareDeterminant(
+                a1[0], a0[0], b1[1], b0[1],
+                a1[1], a0[1], b1[0], b0[0],
+                tolerance
+        ) >= 0;
+        if (parallel)
+            return null; // lines are coincident
+
+        double adx = a1[0] - a0[0];
+        double ady = a1[1] - a0[1];
+        double bdx = b1[0] - b0[0];
+        double bdy = b1[1] - b0[1];
+        double axb = adx * bdy - ady * bdx;
+
+        double dx = a0[0] - b0[0];
+        double dy = a0[1] - b0[1];
+
+        double A = (bdx * dy - bdy * dx) / axb;
+        double B = (adx * dy - ady * dx) / axb;
+
+        EpsilonIntersectionResult ret = new EpsilonIntersectionResult();
+        ret.pt = point(
+                a0[0] + A * adx,
+                a0[1] + A * ady
+        );
+
+        // categorize where intersection point is along A and B
+        // an endpoint on the other line is the intersection, so B is categorized with it
+        ret.alongA = this.along(ret.pt, A, a0, a1, b0, b1);
+        if (ret.alongA == -1)
+            ret.pt = point(a0[0], a0[1]);
+        else if (ret.alongA == 1)
+            ret.pt = point(a1[0], a1[1]);
+
+        ret.alongB = this.along(ret.pt, B, b0, b1, a0, a1);
+        if (ret.alongB == -1)
+            ret.pt = point(b0[0], b0[1]);
+        else if (ret.alongB == 1)
+            ret.pt = point(b1[0], b1[1]);
+
+        return ret;
+    }
+
+    private int along(double[] pt, double t, double[] p0, double[] p1, double[] q0, double[] q1) {
+        // where pt, at `t` along p0->p1, is, knowing the line q0->q1 isn't parallel to it:
+        // -2 before p0, -1 at p0, 0 between, 1 at p1, 2 after p1
+        int side0 = this.side(p0, q0, q1);
+        int side1 = this.side(p1, q0, q1);
+        if (side0 == 0 || this.pointsSame(pt, p0))
+            return -1;
+        if (side1 == 0 || this.pointsSame(pt, p1))
+            return 1;
+        if (side0 != side1)
+            return 0;
+        return t < 0.5 ? -2 : 2;
+    }
+
+    @Override
+    public boolean pointInsideRegion(double[] pt, List<double[]> region) {
+        // even-odd crossing test, where the crossings are decided with the orientation test
+        double x = pt[0];
+        double y = pt[1];
+        double[] last = region.get(region.size() - 1);
+        boolean inside = false;
+        for (double[] curr : region) {
+            if ((curr[1] > y) != (last[1] > y)) {
+                // the edge crosses the horizontal line through pt, is pt left of the crossing?
+                double[] lo = curr[1] < last[1] ? curr : last;
+                double[] hi = curr[1] < last[1] ? last : curr;
+                if (this.compareDeterminant(
+                        hi[0], lo[0], y, lo[1],
+                        hi[1], lo[1], x, lo[0],
+                        0
+                ) > 0)
+                    inside = !inside;
+            }
+            last = curr;
+        }
+        return inside;
+    }
+}
@@ -0,0 +1,295 @@
+package com.menecats.polybool;
+
+import com.menecats.polybool.models.Polygon;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+public final class SegmentsCache {
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long uncacheable;
+        private final int entries;
+        private final long weight;
+
+        private Stats(long hits, long misses, long evictions, long uncacheable, int entries, long weight) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.uncacheable = uncacheable;
+            this.entries = entries;
+            this.weight = weight;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public long getUncacheable() {
+            // the misses heavier than the whole cache, which were not kept
+            return uncacheable;
+        }
+
+        public int getEntries() {
+            return entries;
+        }
+
+        public long getWeight() {
+            return weight;
+        }
+
+        public double getHitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "hits=" + hits +
+                    ", misses=" + misses +
+                    ", evictions=" + evictions +
+                    ", uncacheable=" + uncacheable +
+                    ", entries=" + entries +
+                    ", weight=" + weight +
+                    '}';
+        }
+    }
+
+    // the content of a polygon, as seen by `PolyBool.segments`
+    // the hash only picks the stripe and the bucket, two keys are the same only if all their
+    // coordinates are the same
+    private static final class Key {
+        private final double[] coords; // x and y of every point, region after region
+        private final int[] lengths; // number of points of every region
+        private final boolean inverted;
+        private final Class<?> epsilonClass;
+        private final double epsilon;
+        private final double simplifyTolerance; // the same points give other segments once simplified
+        private final int hash;
+
+        Key(Epsilon epsilon, Polygon polygon) {
+            List<List<double[]>> regions = polygon.getRegions();
+
+            int points = 0;
+            for (List<double[]> region : regions)
+                points += region.size();
+
+            this.coords = new double[points * 2];
+            this.lengths = new int[regions.size()];
+            this.inverted = polygon.isInverted();
+            this.epsilonClass = epsilon.getClass();
+            this.epsilon = epsilon.epsilon();
+            this.simplifyTolerance = epsilon.options().getSimplifyTolerance();
+
+            long h = 0xcbf29ce484222325L;
+            int c = 0;
+            for (int r = 0; r < regions.size(); r++) {
+                List<double[]> region = regions.get(r);
+                this.lengths[r] = region.size();
+                h = mix(h, region.size());
+                for (double[] pt : region) {
+                    this.coords[c++] = pt[0];
+                    this.coords[c++] = pt[1];
+                    h = mix(h, Double.doubleToLongBits(pt[0]));
+                    h = mix(h, Double.doubleToLongBits(pt[1]));
+                }
+            }
+            h = mix(h, this.inverted ? 1 : 0);
+            h = mix(h, Double.doubleToLongBits(this.epsilon));
+            h = mix(h, this.epsilonClass.hashCode());
+            h = mix(h, Double.doubleToLongBits(this.simplifyTolerance));
+            this.hash = (int) (h ^ (h >>> 32));
+        }
+
+        private static long mix(long h, long v) {
+            h ^= v;
+            h *= 0x100000001b3L;
+            return h ^ (h >>> 29);
+        }
+
+        long weight() {
+            return 64L + this.coords.length * 8L + this.lengths.length * 4L;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return hash == key.hash &&
+                    inverted == key.inverted &&
+                    epsilonClass == key.epsilonClass &&
+                    Double.compare(epsilon, key.epsilon) == 0 &&
+                    Double.compare(simplifyTolerance, key.simplifyTolerance) == 0 &&
+                    Arrays.equals(lengths, key.lengths) &&
+                    Arrays.equals(coords, key.coords);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry {
+        final PolyBool.Segments segments;
+        final long weight;
+
+        Entry(PolyBool.Segments segments, long weight) {
+            this.segments = segments;
+            this.weight = weight;
+        }
+    }
+
+    // every stripe is an LRU with its own lock, so concurrent lookups of different polygons
+    // rarely wait for each other, and the weight limit is shared by all of them: an entry first
+    // evicts the oldest entries of its own stripe, then, when that isn't enough, of the others,
+    // one stripe at a time, so a polygon can be cached as long as it fits in the whole cache
+    private static final class Stripe {
+        final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        long weight;
+    }
+
+    private final Stripe[] stripes;
+    private final long maxWeight;
+    private final AtomicLong weight = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder uncacheable = new LongAdder();
+
+    public SegmentsCache(long maxWeight) {
+        this(maxWeight, 16);
+    }
+
+    public SegmentsCache(long maxWeight, int concurrency) {
+        // maxWeight is roughly the number of bytes the cached polygons and segments may take
+        if (maxWeight <= 0)
+            throw new IllegalArgumentException("PolyBool: The maximum weight of the cache must be positive");
+        if (concurrency <= 0)
+            throw new IllegalArgumentException("PolyBool: The concurrency of the cache must be positive");
+
+        int n = 1;
+        while (n < concurrency) // a power of two, so a stripe can be picked with a mask
+            n <<= 1;
+        this.stripes = new Stripe[n];
+        for (int i = 0; i < n; i++)
+            this.stripes[i] = new Stripe();
+        this.maxWeight = maxWeight;
+    }
+
+    PolyBool.Segments segments(Epsilon epsilon, Polygon polygon, Supplier<PolyBool.Segments> calculate) {
+        Key key = new Key(epsilon, polygon);
+        Stripe stripe = this.stripe(key);
+
+        synchronized (stripe) {
+            Entry entry = stripe.entries.get(key);
+            if (entry != null) {
+                this.hits.increment();
+                return entry.segments;
+            }
+        }
+
+        // the sweep runs outside of the lock, two threads missing the same polygon at the same time
+        // both calculate it, and the first one to finish wins
+        this.misses.increment();
+        PolyBool.Segments segments = calculate.get();
+        long weight = key.weight() + segments.weight();
+        if (weight > this.maxWeight) {
+            this.uncacheable.increment(); // would evict everything else, and still not fit
+            return segments;
+        }
+
+        synchronized (stripe) {
+            Entry entry = stripe.entries.get(key);
+            if (entry != null)
+                return entry.segments;
+
+            stripe.entries.put(key, new Entry(segments, weight));
+            stripe.weight += weight;
+            this.weight.addAndGet(weight);
+            this.evict(stripe, 1); // not the new entry, the most recent one
+        }
+
+        for (int i = 0; i < this.stripes.length && this.weight.get() > this.maxWeight; i++) {
+            Stripe other = this.stripes[i];
+            if (other == stripe)
+                continue;
+            synchronized (other) {
+                this.evict(other, 0);
+            }
+        }
+        return segments;
+    }
+
+    private void evict(Stripe stripe, int keep) {
+        // removes the oldest entries of `stripe` until the cache is within its weight, or only the
+        // `keep` most recent entries are left
+        // the caller holds the lock of the stripe
+        Iterator<Entry> it = stripe.entries.values().iterator();
+        while (this.weight.get() > this.maxWeight && stripe.entries.size() > keep) {
+            Entry eldest = it.next();
+            it.remove();
+            stripe.weight -= eldest.weight;
+            this.weight.addAndGet(-eldest.weight);
+            this.evictions.increment();
+        }
+    }
+
+    private Stripe stripe(Key key) {
+        int h = key.hash;
+        h ^= h >>> 16;
+        return this.stripes[h & (this.stripes.length - 1)];
+    }
+
+    public void clear() {
+        for (Stripe stripe : this.stripes) {
+            synchronized (stripe) {
+                stripe.entries.clear();
+                this.weight.addAndGet(-stripe.weight);
+                stripe.weight = 0;
+            }
+        }
+    }
+
+    public Stats stats() {
+        int entries = 0;
+        long weight = 0;
+        for (Stripe stripe : this.stripes) {
+            synchronized (stripe) {
+                entries += stripe.entries.size();
+                weight += stripe.weight;
+            }
+        }
+        return new Stats(this.hits.sum(), this.misses.sum(), this.evictions.sum(), this.uncacheable.sum(), entries, weight);
+    }
+
+    public void resetStats() {
+        this.hits.reset();
+        this.misses.reset();
+        this.evictions.reset();
+        this.uncacheable.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "SegmentsCache{" + this.stats() + '}';
+    }
+}
@@ -0,0 +1,79 @@
+package com.menecats.polybool;
+
+import com.menecats.polybool.internal.SegmentBuffer;
+import com.menecats.polybool.models.Polygon;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class SlowOperationRecorder {
+    // saves the inputs of the sweeps that take longer than a threshold, or that produce more
+    // segments than a threshold (every segment is at least two events of the sweep), as
+    // recordings in a directory, to replay them offline with Recording
+    // failures to write a recording are counted, and never reach the operation being recorded
+    private final Path directory;
+    private final long thresholdNanos;
+    private final int thresholdSegments;
+    private final String prefix; // tells apart the files of different processes
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public SlowOperationRecorder(Path directory, long thresholdMillis) {
+        this(directory, thresholdMillis, Integer.MAX_VALUE);
+    }
+
+    public SlowOperationRecorder(Path directory, long thresholdMillis, int thresholdSegments) {
+        if (thresholdMillis < 0 || thresholdSegments < 0)
+            throw new IllegalArgumentException("PolyBool: The thresholds cannot be negative");
+        this.directory = directory;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.thresholdSegments = thresholdSegments;
+        this.prefix = "polybool-" + Long.toString(System.currentTimeMillis(), 36) + "-";
+    }
+
+    public long getRecorded() {
+        return recorded.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    void segments(Epsilon epsilon, Polygon polygon, long nanos, int segments) {
+        if (this.isSlow(nanos, segments))
+            this.save(Recording.ofSegments(epsilon, polygon, nanos, segments));
+    }
+
+    void combine(Epsilon epsilon, SegmentBuffer segments1, boolean inverted1,
+                 SegmentBuffer segments2, boolean inverted2, long nanos, int segments) {
+        if (this.isSlow(nanos, segments))
+            this.save(Recording.ofCombine(epsilon, segments1, inverted1, segments2, inverted2, nanos, segments));
+    }
+
+    private boolean isSlow(long nanos, int segments) {
+        return nanos > this.thresholdNanos || segments > this.thresholdSegments;
+    }
+
+    private void save(Recording recording) {
+        try {
+            Files.createDirectories(this.directory);
+            recording.write(this.directory.resolve(String.format("%s%06d.pbr", this.prefix, this.sequence.incrementAndGet())));
+            this.recorded.incrementAndGet();
+        } catch (IOException | RuntimeException e) {
+            this.failures.incrementAndGet();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SlowOperationRecorder{" +
+                "directory=" + directory +
+                ", recorded=" + recorded +
+                ", failures=" + failures +
+                '}';
+    }
+}
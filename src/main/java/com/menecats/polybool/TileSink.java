@@ -0,0 +1,12 @@
+package com.menecats.polybool;
+
+import com.menecats.polybool.models.Polygon;
+
+public interface TileSink {
+    // receives the part of a polygon inside each tile of a pyramid, one call at a time, in no
+    // particular order; tiles the polygon doesn't reach aren't reported
+    // tile (zoom, x, y) is column `x` and row `y` of the 2^zoom by 2^zoom grid over the extent,
+    // counting from its minimum corner
+
+    void tile(int zoom, int x, int y, Polygon polygon);
+}
@@ -1,10 +1,8 @@
 package com.menecats.polybool.internal;
 
 import com.menecats.polybool.Epsilon;
-import com.menecats.polybool.models.Segment;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -12,31 +10,66 @@ import java.util.function.Supplier;
 public abstract class AbstractIntersecter {
     protected static class IntersecterContent {
         boolean isStart;
-        double[] pt;
-        Segment seg;
+        int seg;
         boolean primary;
         LinkedList<IntersecterContent> other;
         LinkedList<LinkedList<IntersecterContent>> status;
     }
 
+    public interface SegmentReport {
+        // receives a segment as soon as its fill flags are final, returns false to stop the sweep
+        boolean report(SegmentBuffer segments, int index);
+    }
+
     protected final Epsilon eps;
+    protected final SegmentBuffer segs = new SegmentBuffer();
 
-    private final boolean selfIntersection;
     private final LinkedList<IntersecterContent> event_root = LinkedList.create();
 
-    AbstractIntersecter(boolean selfIntersection, Epsilon eps) {
+    // the epsilon functions work on points, so coordinates are loaded into these before calling
+    // them, instead of allocating a point for every comparison
+    private final double[] c1 = new double[2];
+    private final double[] c2 = new double[2];
+    private final double[] c3 = new double[2];
+    private final double[] c4 = new double[2];
+    private final double[] a1 = new double[2];
+    private final double[] a2 = new double[2];
+    private final double[] b1 = new double[2];
+    private final double[] b2 = new double[2];
+
+    AbstractIntersecter(Epsilon eps) {
         this.eps = eps;
-        this.selfIntersection = selfIntersection;
     }
 
-    protected Segment segmentNew(double[] start, double[] end) {
-        return new Segment(start, end);
+    // called when `ev` turns out to be equal to `eve`, which is already in the status
+    // merges ev.seg's fill information into eve.seg, and returns true if `ev` can be thrown away
+    protected abstract boolean segmentsMerge(IntersecterContent ev, IntersecterContent eve);
+
+    // calculates the fill flags of `ev` right before it enters the status, `below` is the segment
+    // directly below it (or null if there is nothing below)
+    protected abstract void segmentFill(IntersecterContent ev, IntersecterContent below,
+                                        boolean primaryPolyInverted, boolean secondaryPolyInverted);
+
+    protected int segmentNew(double[] start, double[] end) {
+        return this.segs.add(start[0], start[1], end[0], end[1], 0);
     }
 
-    protected Segment segmentCopy(double[] start, double[] end, Segment seg) {
-        return new Segment(start, end, new Segment.SegmentFill(seg.myFill.above, seg.myFill.below));
+    protected int segmentCopy(double x1, double y1, double x2, double y2, SegmentBuffer source, int seg) {
+        // only the fill of the segment's own polygon is carried over
+        return this.segs.add(x1, y1, x2, y2, source.fill(seg) & SegmentBuffer.MY);
     }
 
+    private static double[] start(SegmentBuffer segs, int seg, double[] out) {
+        out[0] = segs.x1(seg);
+        out[1] = segs.y1(seg);
+        return out;
+    }
+
+    private static double[] end(SegmentBuffer segs, int seg, double[] out) {
+        out[0] = segs.x2(seg);
+        out[1] = segs.y2(seg);
+        return out;
+    }
 
     private int eventCompare(boolean p1_isStart, double[] p1_1, double[] p1_2,
                              boolean p2_isStart, double[] p2_1, double[] p2_2) {
@@ -60,67 +93,141 @@ public abstract class AbstractIntersecter {
         ) ? 1 : -1;
     }
 
-    private void eventAdd(LinkedList<IntersecterContent> ev, double[] other_pt) {
-        this.event_root.insertBefore(ev, (here) -> {
+    protected boolean endsBefore(SegmentBuffer segs1, int seg1, SegmentBuffer segs2, int seg2) {
+        // whether the end event of seg1 goes before the end event of seg2 in the event queue, so
+        // segments kept out of the sweep can be reported in the order the sweep would have
+        return this.eventCompare(
+                false, end(segs1, seg1, this.c1), start(segs1, seg1, this.c2),
+                false, end(segs2, seg2, this.c3), start(segs2, seg2, this.c4)
+        ) < 0;
+    }
+
+    static int[] endOrder(SegmentBuffer segments) {
+        // the segments in the order of their end events, which is the order the sweep reports
+        // them in: by point, then the one starting lower first when they end at the same point
+        // the segments must not cross, like the output of a sweep, or the order isn't total
+        Integer[] order = new Integer[segments.size()];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        Arrays.sort(order, (i, j) -> {
+            int comp = Double.compare(segments.x2(i), segments.x2(j));
+            if (comp == 0)
+                comp = Double.compare(segments.y2(i), segments.y2(j));
+            if (comp != 0)
+                return comp;
+            double cross = (segments.x2(j) - segments.x1(j)) * (segments.y1(i) - segments.y1(j)) -
+                    (segments.y2(j) - segments.y1(j)) * (segments.x1(i) - segments.x1(j));
+            if (cross != 0)
+                return cross > 0 ? 1 : -1;
+            comp = Double.compare(segments.x1(i), segments.x1(j));
+            return comp != 0 ? comp : Double.compare(segments.y1(i), segments.y1(j));
+        });
+
+        int[] result = new int[order.length];
+        for (int i = 0; i < order.length; i++)
+            result[i] = order[i];
+        return result;
+    }
+
+    private void eventAdd(LinkedList<IntersecterContent> ev) {
+        this.eventAdd(ev, this.event_root);
+    }
+
+    private void eventAdd(LinkedList<IntersecterContent> ev, LinkedList<IntersecterContent> from) {
+        // the event's point is the start or the end of its segment, and the other point is the
+        // opposite end
+        // the queue is searched after `from`, which must come before the event
+        IntersecterContent content = ev.getContent();
+        double[] pt = content.isStart ? start(this.segs, content.seg, this.c1) : end(this.segs, content.seg, this.c1);
+        double[] other_pt = content.isStart ? end(this.segs, content.seg, this.c2) : start(this.segs, content.seg, this.c2);
+
+        this.event_root.insertBefore(ev, from, (here) -> {
             // should ev be inserted before here?
+            IntersecterContent h = here.getContent();
             int comp = this.eventCompare(
-                    ev.getContent().isStart, ev.getContent().pt, other_pt,
-                    here.getContent().isStart, here.getContent().pt, here.getContent().other.getContent().pt
+                    content.isStart, pt, other_pt,
+                    h.isStart,
+                    h.isStart ? start(this.segs, h.seg, this.c3) : end(this.segs, h.seg, this.c3),
+                    h.isStart ? end(this.segs, h.seg, this.c4) : start(this.segs, h.seg, this.c4)
             );
             return comp < 0;
         });
     }
 
-    private LinkedList<IntersecterContent> eventAddSegmentStart(Segment seg, boolean primary) {
+    private LinkedList<IntersecterContent> eventAddSegmentStart(int seg, boolean primary, LinkedList<IntersecterContent> from) {
         IntersecterContent content = new IntersecterContent();
         content.isStart = true;
-        content.pt = seg.start;
         content.seg = seg;
         content.primary = primary;
 
         LinkedList<IntersecterContent> ev_start = LinkedList.node(content);
-        this.eventAdd(ev_start, seg.end);
+        this.eventAdd(ev_start, from);
         return ev_start;
     }
 
-    private void eventAddSegmentEnd(LinkedList<IntersecterContent> ev_start, Segment seg, boolean primary) {
+    private void eventAddSegmentEnd(LinkedList<IntersecterContent> ev_start, int seg, boolean primary, LinkedList<IntersecterContent> from) {
         IntersecterContent content = new IntersecterContent();
         content.isStart = false;
-        content.pt = seg.end;
         content.seg = seg;
         content.primary = primary;
         content.other = ev_start;
 
         LinkedList<IntersecterContent> ev_end = LinkedList.node(content);
         ev_start.getContent().other = ev_end;
-        this.eventAdd(ev_end, ev_start.getContent().pt);
+        this.eventAdd(ev_end, from);
     }
 
-    protected LinkedList<IntersecterContent> eventAddSegment(Segment seg, boolean primary) {
-        LinkedList<IntersecterContent> ev_start = this.eventAddSegmentStart(seg, primary);
-        this.eventAddSegmentEnd(ev_start, seg, primary);
+    protected LinkedList<IntersecterContent> eventAddSegment(int seg, boolean primary) {
+        LinkedList<IntersecterContent> ev_start = this.eventAddSegmentStart(seg, primary, this.event_root);
+        this.eventAddSegmentEnd(ev_start, seg, primary, this.event_root);
         return ev_start;
     }
 
+    protected LinkedList<IntersecterContent> eventAddSegment(int seg, boolean primary, LinkedList<IntersecterContent> after) {
+        // same as above, for a segment whose events are known to come after the event `after`,
+        // like the next edge of a monotone chain, so the queue is only searched from there
+        // the end of a segment always comes after its start
+        LinkedList<IntersecterContent> ev_start = this.eventAddSegmentStart(seg, primary, after);
+        this.eventAddSegmentEnd(ev_start, seg, primary, ev_start);
+        return ev_start;
+    }
+
+    protected boolean segmentsMayIntersect(int seg1, int seg2) {
+        // returns false if the two segments are known to have nothing in common except maybe an
+        // endpoint, so the sweep can skip the intersection test
+        return true;
+    }
+
     private void eventUpdateEnd(LinkedList<IntersecterContent> ev, double[] end) {
         // slides an end backwards
         //   (start)------------(end)    to:
         //   (start)---(end)
 
         ev.getContent().other.remove();
-        ev.getContent().seg.end = end;
-        ev.getContent().other.getContent().pt = end;
-        this.eventAdd(ev.getContent().other, ev.getContent().pt);
+        this.segs.setEnd(ev.getContent().seg, end[0], end[1]);
+        this.eventAdd(ev.getContent().other);
     }
 
     private LinkedList<IntersecterContent> eventDivide(LinkedList<IntersecterContent> ev, double[] pt) {
-        Segment ns = this.segmentCopy(pt, ev.getContent().seg.end, ev.getContent().seg);
+        int seg = ev.getContent().seg;
+        int ns = this.segmentCopy(pt[0], pt[1], this.segs.x2(seg), this.segs.y2(seg), this.segs, seg);
         this.eventUpdateEnd(ev, pt);
         return this.eventAddSegment(ns, ev.getContent().primary);
     }
 
-    protected List<Segment> baseCalculate(boolean primaryPolyInverted, boolean secondaryPolyInverted) {
-        // if selfIntersection is true then there is no secondary polygon, so that isn't used
+    protected SegmentBuffer baseCalculate(boolean primaryPolyInverted, boolean secondaryPolyInverted) {
+        SegmentBuffer segments = new SegmentBuffer(this.segs.size());
+        this.baseCalculate(primaryPolyInverted, secondaryPolyInverted, (segs, index) -> {
+            segments.add(segs, index, segs.fill(index));
+            return true;
+        });
+        return segments;
+    }
+
+    protected void baseCalculate(boolean primaryPolyInverted, boolean secondaryPolyInverted, SegmentReport report) {
+        // self intersecters have no secondary polygon, so that isn't used
+        // `report` receives every segment as soon as its fill flags are final, and can stop the
+        // sweep early by returning false
 
         //
         // status logic
@@ -129,10 +236,10 @@ public abstract class AbstractIntersecter {
         LinkedList<LinkedList<IntersecterContent>> status_root = LinkedList.create();
 
         BiFunction<LinkedList<IntersecterContent>, LinkedList<IntersecterContent>, Integer> statusCompare = (ev1, ev2) -> {
-            double[] a1 = ev1.getContent().seg.start;
-            double[] a2 = ev1.getContent().seg.end;
-            double[] b1 = ev2.getContent().seg.start;
-            double[] b2 = ev2.getContent().seg.end;
+            double[] a1 = start(this.segs, ev1.getContent().seg, this.c1);
+            double[] a2 = end(this.segs, ev1.getContent().seg, this.c2);
+            double[] b1 = start(this.segs, ev2.getContent().seg, this.c3);
+            double[] b2 = end(this.segs, ev2.getContent().seg, this.c4);
 
             if (this.eps.pointsCollinear(a1, b1, b2)) {
                 if (this.eps.pointsCollinear(a2, b1, b2))
@@ -151,12 +258,13 @@ public abstract class AbstractIntersecter {
         final BiFunction<LinkedList<IntersecterContent>, LinkedList<IntersecterContent>, LinkedList<IntersecterContent>> checkIntersection = (ev1, ev2) -> {
             // returns the segment equal to ev1, or false if nothing equal
 
-            final Segment seg1 = ev1.getContent().seg;
-            final Segment seg2 = ev2.getContent().seg;
-            final double[] a1 = seg1.start;
-            final double[] a2 = seg1.end;
-            final double[] b1 = seg2.start;
-            final double[] b2 = seg2.end;
+            if (!this.segmentsMayIntersect(ev1.getContent().seg, ev2.getContent().seg))
+                return null;
+
+            final double[] a1 = start(this.segs, ev1.getContent().seg, this.a1);
+            final double[] a2 = end(this.segs, ev1.getContent().seg, this.a2);
+            final double[] b1 = start(this.segs, ev2.getContent().seg, this.b1);
+            final double[] b2 = end(this.segs, ev2.getContent().seg, this.b2);
 
             final Epsilon.EpsilonIntersectionResult i = this.eps.linesIntersect(a1, a2, b1, b2);
 
@@ -246,7 +354,6 @@ public abstract class AbstractIntersecter {
         //
         // main event loop
         //
-        List<Segment> segments = new ArrayList<>();
         while (!this.event_root.isEmpty()) {
             LinkedList<IntersecterContent> ev = this.event_root.getHead();
 
@@ -258,41 +365,21 @@ public abstract class AbstractIntersecter {
                 Supplier<LinkedList<IntersecterContent>> checkBothIntersections = () -> {
                     if (above != null) {
                         LinkedList<IntersecterContent> eve = checkIntersection.apply(ev, above);
-                        if (eve != null)
+                        if (eve != null && this.segmentsMerge(ev.getContent(), eve.getContent()))
+                            return eve;
+                    }
+                    if (below != null) {
+                        LinkedList<IntersecterContent> eve = checkIntersection.apply(ev, below);
+                        if (eve != null && this.segmentsMerge(ev.getContent(), eve.getContent()))
                             return eve;
                     }
-                    if (below != null)
-                        return checkIntersection.apply(ev, below);
                     return null;
                 };
 
                 LinkedList<IntersecterContent> eve = checkBothIntersections.get();
                 if (eve != null) {
-                    // ev and eve are equal
+                    // ev and eve are equal, and ev.seg's fill information has been merged into eve.seg
                     // we'll keep eve and throw away ev
-
-                    // merge ev.seg's fill information into eve.seg
-
-                    if (this.selfIntersection) {
-                        boolean toggle; // are we a toggling edge?
-                        if (ev.getContent().seg.myFill.below == null)
-                            toggle = true;
-                        else
-                            toggle = ev.getContent().seg.myFill.above != ev.getContent().seg.myFill.below;
-
-                        // merge two segments that belong to the same polygon
-                        // think of this as sandwiching two segments together, where `eve.seg` is
-                        // the bottom -- this will cause the above fill flag to toggle
-                        if (toggle)
-                            eve.getContent().seg.myFill.above = !eve.getContent().seg.myFill.above;
-                    } else {
-                        // merge two segments that belong to different polygons
-                        // each segment has distinct knowledge, so no special logic is needed
-                        // note that this can only happen once per segment in this phase, because we
-                        // are guaranteed that all self-intersections are gone
-                        eve.getContent().seg.otherFill = ev.getContent().seg.myFill;
-                    }
-
                     ev.getContent().other.remove();
                     ev.remove();
                 }
@@ -306,53 +393,7 @@ public abstract class AbstractIntersecter {
                 //
                 // calculate fill flags
                 //
-                if (this.selfIntersection) {
-                    boolean toggle; // are we a toggling edge?
-                    if (ev.getContent().seg.myFill.below == null) // if we are a new segment...
-                        toggle = true; // then we toggle
-                    else // we are a segment that has previous knowledge from a division
-                        toggle = ev.getContent().seg.myFill.above != ev.getContent().seg.myFill.below; // calculate toggle
-
-                    // next, calculate whether we are filled below us
-                    if (below == null) { // if nothing is below us...
-                        // we are filled below us if the polygon is inverted
-                        ev.getContent().seg.myFill.below = primaryPolyInverted;
-                    } else {
-                        // otherwise, we know the answer -- it's the same if whatever is below
-                        // us is filled above it
-                        ev.getContent().seg.myFill.below = below.getContent().seg.myFill.above;
-                    }
-
-                    // since now we know if we're filled below us, we can calculate whether
-                    // we're filled above us by applying toggle to whatever is below us
-                    if (toggle)
-                        ev.getContent().seg.myFill.above = !ev.getContent().seg.myFill.below;
-                    else
-                        ev.getContent().seg.myFill.above = ev.getContent().seg.myFill.below;
-                } else {
-                    // now we fill in any missing transition information, since we are all-knowing
-                    // at this point
-
-                    if (ev.getContent().seg.otherFill == null) {
-                        // if we don't have other information, then we need to figure out if we're
-                        // inside the other polygon
-                        boolean inside;
-                        if (below == null) {
-                            // if nothing is below us, then we're inside if the other polygon is
-                            // inverted
-                            inside = ev.getContent().primary
-                                    ? secondaryPolyInverted
-                                    : primaryPolyInverted;
-                        } else { // otherwise, something is below us
-                            // so copy the below segment's other polygon's above
-                            if (ev.getContent().primary == below.getContent().primary)
-                                inside = below.getContent().seg.otherFill.above;
-                            else
-                                inside = below.getContent().seg.myFill.above;
-                        }
-                        ev.getContent().seg.otherFill = new Segment.SegmentFill(inside, inside);
-                    }
-                }
+                this.segmentFill(ev.getContent(), below != null ? below.getContent() : null, primaryPolyInverted, secondaryPolyInverted);
 
                 // insert the status and remember it for later removal
                 ev.getContent().other.getContent().status = surrounding.insert.apply(LinkedList.node(ev));
@@ -373,19 +414,17 @@ public abstract class AbstractIntersecter {
 
                 // if we've reached this point, we've calculated everything there is to know, so
                 // save the segment for reporting
+                int seg = ev.getContent().seg;
                 if (!ev.getContent().primary) {
                     // make sure `seg.myFill` actually points to the primary polygon though
-                    Segment.SegmentFill s = ev.getContent().seg.myFill;
-                    ev.getContent().seg.myFill = ev.getContent().seg.otherFill;
-                    ev.getContent().seg.otherFill = s;
+                    this.segs.setFill(seg, SegmentBuffer.swap(this.segs.fill(seg)));
                 }
-                segments.add(ev.getContent().seg);
+                if (!report.report(this.segs, seg))
+                    return; // the caller knows everything it needs
             }
 
             // remove the event and continue
             this.event_root.getHead().remove();
         }
-
-        return segments;
     }
 }
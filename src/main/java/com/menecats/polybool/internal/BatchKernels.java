@@ -0,0 +1,33 @@
+package com.menecats.polybool.internal;
+
+public final class BatchKernels {
+    // the predicates of Epsilon over many points at once, on packed coordinates
+    // this is the Java 8 version, the multi-release jar replaces it on Java 17 and later with one
+    // using the Vector API when the jdk.incubator.vector module is available
+    private BatchKernels() {
+    }
+
+    public static boolean isVectorized() {
+        return false;
+    }
+
+    public static void range(double[] a, double[] b, int count, double[] out, int offset) {
+        // the minimum of a and b in out[offset], and the maximum in out[offset + 2], so x and y
+        // fill a minX, minY, maxX, maxY box
+        ScalarKernels.range(a, b, count, out, offset);
+    }
+
+    public static void pointsAboveOrOnLine(double[] px, double[] py, double[] ax, double[] ay, double[] bx, double[] by,
+                                           int count, double eps, boolean[] out) {
+        // Epsilon.pointAboveOrOnLine for every i
+        ScalarKernels.pointsAboveOrOnLine(px, py, ax, ay, bx, by, count, eps, out);
+    }
+
+    public static void flipInsideRegion(double[] region, int points, double[] xs, double[] ys, int count, double eps,
+                                        boolean[] inside) {
+        // flips inside[i] when Epsilon.pointInsideRegion is true for the i-th point
+        // `region` holds the x and y of its points, so even-odd rules over many regions only
+        // need one call for each region
+        ScalarKernels.flipInsideRegion(region, points, xs, ys, 0, count, eps, inside);
+    }
+}
@@ -0,0 +1,110 @@
+package com.menecats.polybool.internal;
+
+import com.menecats.polybool.Epsilon;
+
+import java.util.List;
+
+public final class BoundingBox {
+    public static final BoundingBox EMPTY = new BoundingBox(
+            Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY
+    );
+
+    public final double minX;
+    public final double minY;
+    public final double maxX;
+    public final double maxY;
+
+    public BoundingBox(double minX, double minY, double maxX, double maxY) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+    }
+
+    public static BoundingBox of(SegmentBuffer segments) {
+        if (segments.isEmpty())
+            return EMPTY;
+
+        double[] box = new double[4];
+        segments.bounds(box);
+        return new BoundingBox(box[0], box[1], box[2], box[3]);
+    }
+
+    public static BoundingBox ofRegions(List<List<double[]>> regions) {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (List<double[]> region : regions) {
+            for (double[] pt : region) {
+                minX = Math.min(minX, pt[0]);
+                minY = Math.min(minY, pt[1]);
+                maxX = Math.max(maxX, pt[0]);
+                maxY = Math.max(maxY, pt[1]);
+            }
+        }
+        return minX > maxX ? EMPTY : new BoundingBox(minX, minY, maxX, maxY);
+    }
+
+    public boolean isEmpty() {
+        return minX > maxX || minY > maxY;
+    }
+
+    public double magnitude() {
+        // the largest coordinate in absolute value, for Epsilon.epsilonAt
+        // infinite sides are left out, no tolerance makes a difference there
+        if (this.isEmpty())
+            return 0;
+        return Math.max(
+                Math.max(finite(this.minX), finite(this.minY)),
+                Math.max(finite(this.maxX), finite(this.maxY))
+        );
+    }
+
+    private static double finite(double coordinate) {
+        return Double.isInfinite(coordinate) ? 0 : Math.abs(coordinate);
+    }
+
+    public boolean intersects(BoundingBox other, Epsilon eps) {
+        return this.intersects(other, eps.epsilonAt(Math.max(this.magnitude(), other.magnitude())));
+    }
+
+    public boolean intersects(BoundingBox other, double eps) {
+        // boxes closer than eps are considered touching, the same way points closer than eps are
+        // considered the same
+        return !this.isEmpty() && !other.isEmpty() &&
+                other.minX - this.maxX < eps && this.minX - other.maxX < eps &&
+                other.minY - this.maxY < eps && this.minY - other.maxY < eps;
+    }
+
+    public boolean contains(BoundingBox other, Epsilon eps) {
+        return this.contains(other, eps.epsilonAt(Math.max(this.magnitude(), other.magnitude())));
+    }
+
+    public boolean contains(BoundingBox other, double eps) {
+        return !this.isEmpty() && !other.isEmpty() &&
+                this.minX - other.minX < eps && other.maxX - this.maxX < eps &&
+                this.minY - other.minY < eps && other.maxY - this.maxY < eps;
+    }
+
+    public BoundingBox intersection(BoundingBox other) {
+        if (this.isEmpty() || other.isEmpty())
+            return EMPTY;
+        return new BoundingBox(
+                Math.max(this.minX, other.minX), Math.max(this.minY, other.minY),
+                Math.min(this.maxX, other.maxX), Math.min(this.maxY, other.maxY)
+        );
+    }
+
+    public BoundingBox union(BoundingBox other) {
+        if (this.isEmpty())
+            return other;
+        if (other.isEmpty())
+            return this;
+        return new BoundingBox(
+                Math.min(this.minX, other.minX), Math.min(this.minY, other.minY),
+                Math.max(this.maxX, other.maxX), Math.max(this.maxY, other.maxY)
+        );
+    }
+}
@@ -0,0 +1,286 @@
+package com.menecats.polybool.internal;
+
+import com.menecats.polybool.Epsilon;
+import com.menecats.polybool.models.Polygon;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.menecats.polybool.helpers.PolyBoolHelper.point;
+
+public final class ConvexClipper {
+    // a convex polygon is the area between its lower chain and its upper chain, two functions of x
+    // the intersection of two convex polygons is then the area between the highest of the lower
+    // chains and the lowest of the upper chains, which is found with a single pass over the x
+    // coordinates of all the vertices, in O(n + m)
+
+    public static List<double[]> convexRing(Epsilon eps, Polygon polygon) {
+        // returns the points of the polygon, counter-clockwise and without repeated or collinear
+        // points, or null if the polygon isn't a single convex region
+        if (polygon.isInverted() || polygon.getRegions() == null || polygon.getRegions().size() != 1)
+            return null;
+
+        List<double[]> ring = clean(eps, polygon.getRegions().get(0));
+        int n = ring.size();
+        if (n < 3)
+            return null;
+
+        // every turn must go the same way, and the ring must go around only once, that is, it must
+        // change direction along x exactly twice
+        int turn = 0;
+        int xChanges = 0;
+        int lastDx = 0;
+        for (int i = 0; i < n; i++) {
+            double[] p0 = ring.get(i);
+            double[] p1 = ring.get((i + 1) % n);
+            double[] p2 = ring.get((i + 2) % n);
+            double cross = (p1[0] - p0[0]) * (p2[1] - p1[1]) - (p1[1] - p0[1]) * (p2[0] - p1[0]);
+            int sign = cross > 0 ? 1 : cross < 0 ? -1 : 0;
+            if (sign == 0 || (turn != 0 && sign != turn))
+                return null;
+            turn = sign;
+
+            int dx = p1[0] < p0[0] ? -1 : p1[0] > p0[0] ? 1 : 0;
+            if (dx != 0) {
+                if (lastDx != 0 && dx != lastDx)
+                    xChanges++;
+                lastDx = dx;
+            }
+        }
+        // the change between the last and the first edges along x
+        for (int i = 0; i < n; i++) {
+            double[] p0 = ring.get(i);
+            double[] p1 = ring.get((i + 1) % n);
+            int dx = p1[0] < p0[0] ? -1 : p1[0] > p0[0] ? 1 : 0;
+            if (dx != 0) {
+                if (dx != lastDx)
+                    xChanges++;
+                break;
+            }
+        }
+        if (xChanges != 2)
+            return null;
+
+        if (turn < 0)
+            Collections.reverse(ring);
+        return ring;
+    }
+
+    static List<double[]> clean(Epsilon eps, List<double[]> region) {
+        // removes repeated points, and points in the middle of a straight line, in a single pass
+        // where every point is checked against the last points kept
+        List<double[]> ring = new ArrayList<>(region.size());
+        for (double[] pt : region) {
+            while (!ring.isEmpty() && (
+                    eps.pointsSame(ring.get(ring.size() - 1), pt) ||
+                    (ring.size() >= 2 && eps.pointsCollinear(ring.get(ring.size() - 2), ring.get(ring.size() - 1), pt))
+            ))
+                ring.remove(ring.size() - 1);
+            ring.add(pt);
+        }
+
+        // then the ring is closed, the points around the seam get the same checks
+        int first = 0;
+        boolean changed = true;
+        while (changed && ring.size() - first >= 3) {
+            changed = false;
+            int last = ring.size() - 1;
+            if (eps.pointsSame(ring.get(last), ring.get(first)) ||
+                    eps.pointsCollinear(ring.get(last - 1), ring.get(last), ring.get(first))) {
+                ring.remove(last);
+                changed = true;
+            } else if (eps.pointsCollinear(ring.get(last), ring.get(first), ring.get(first + 1))) {
+                first++;
+                changed = true;
+            }
+        }
+        return first == 0 ? ring : new ArrayList<>(ring.subList(first, ring.size()));
+    }
+
+    private static final class Chain {
+        final double[] x;
+        final double[] y;
+        int i;
+
+        Chain(List<double[]> ring, int from, int to, int step, boolean lower) {
+            int n = ring.size();
+            int count = 1;
+            for (int k = from; k != to; k = (k + step + n) % n)
+                count++;
+
+            double[] x = new double[count];
+            double[] y = new double[count];
+            for (int k = from, c = 0; c < count; k = (k + step + n) % n, c++) {
+                x[c] = ring.get(k)[0];
+                y[c] = ring.get(k)[1];
+            }
+
+            // vertical edges only happen at the ends, the lower chain keeps their lowest point and
+            // the upper chain their highest one
+            int start = 0;
+            int end = count;
+            if (lower) {
+                while (end - start > 2 && x[end - 1] == x[end - 2])
+                    end--;
+            } else {
+                while (end - start > 2 && x[start] == x[start + 1])
+                    start++;
+            }
+            this.x = Arrays.copyOfRange(x, start, end);
+            this.y = Arrays.copyOfRange(y, start, end);
+        }
+
+        double at(double px) {
+            // the chain is always evaluated from left to right
+            while (this.i < this.x.length - 2 && this.x[this.i + 1] < px)
+                this.i++;
+            double x0 = this.x[this.i];
+            double x1 = this.x[this.i + 1];
+            if (px == x0 || x0 == x1)
+                return this.y[this.i];
+            if (px == x1)
+                return this.y[this.i + 1];
+            return this.y[this.i] + (px - x0) / (x1 - x0) * (this.y[this.i + 1] - this.y[this.i]);
+        }
+
+        double minX() {
+            return this.x[0];
+        }
+
+        double maxX() {
+            return this.x[this.x.length - 1];
+        }
+    }
+
+    private static Chain[] chains(List<double[]> ring) {
+        // splits a counter-clockwise ring in its lower and upper chains, both from left to right
+        int n = ring.size();
+        int min = 0;
+        int max = 0;
+        for (int i = 1; i < n; i++) {
+            double[] p = ring.get(i);
+            if (p[0] < ring.get(min)[0] || (p[0] == ring.get(min)[0] && p[1] < ring.get(min)[1]))
+                min = i;
+            if (p[0] > ring.get(max)[0] || (p[0] == ring.get(max)[0] && p[1] > ring.get(max)[1]))
+                max = i;
+        }
+        return new Chain[]{
+                new Chain(ring, min, max, 1, true),
+                new Chain(ring, min, max, -1, false)
+        };
+    }
+
+    public static List<List<double[]>> intersect(Epsilon eps, List<double[]> ring1, List<double[]> ring2) {
+        // both rings come from convexRing
+        Chain[] chains1 = chains(ring1);
+        Chain[] chains2 = chains(ring2);
+        Chain lower1 = chains1[0];
+        Chain upper1 = chains1[1];
+        Chain lower2 = chains2[0];
+        Chain upper2 = chains2[1];
+
+        double x0 = Math.max(lower1.minX(), lower2.minX());
+        double x1 = Math.min(lower1.maxX(), lower2.maxX());
+        if (!(x1 > x0))
+            return new ArrayList<>();
+
+        // the x of every vertex within the common range, the chains are linear between them
+        double[] xs = new double[]{x0, x1};
+        for (Chain chain : new Chain[]{lower1, upper1, lower2, upper2})
+            xs = merge(xs, chain.x, x0, x1);
+
+        // where the two lower chains (or the two upper chains) cross, the highest (or lowest) one
+        // changes, so those are added too
+        double[] refined = new double[xs.length * 3];
+        int count = 0;
+        double prevL = lower1.at(xs[0]) - lower2.at(xs[0]);
+        double prevU = upper1.at(xs[0]) - upper2.at(xs[0]);
+        refined[count++] = xs[0];
+        for (int k = 1; k < xs.length; k++) {
+            double l = lower1.at(xs[k]) - lower2.at(xs[k]);
+            double u = upper1.at(xs[k]) - upper2.at(xs[k]);
+            double cl = prevL * l < 0 ? xs[k - 1] + (xs[k] - xs[k - 1]) * prevL / (prevL - l) : Double.NaN;
+            double cu = prevU * u < 0 ? xs[k - 1] + (xs[k] - xs[k - 1]) * prevU / (prevU - u) : Double.NaN;
+            if (!Double.isNaN(cl) && !Double.isNaN(cu) && cu < cl) {
+                double t = cl;
+                cl = cu;
+                cu = t;
+            }
+            if (!Double.isNaN(cl))
+                refined[count++] = cl;
+            if (!Double.isNaN(cu))
+                refined[count++] = cu;
+            refined[count++] = xs[k];
+            prevL = l;
+            prevU = u;
+        }
+
+        // evaluate the combined chains from scratch
+        lower1.i = upper1.i = lower2.i = upper2.i = 0;
+        double[] lows = new double[count];
+        double[] highs = new double[count];
+        for (int k = 0; k < count; k++) {
+            lows[k] = Math.max(lower1.at(refined[k]), lower2.at(refined[k]));
+            highs[k] = Math.min(upper1.at(refined[k]), upper2.at(refined[k]));
+        }
+
+        // the gap between the chains is concave, so the intersection is wherever it isn't negative
+        List<double[]> lower = new ArrayList<>();
+        List<double[]> upper = new ArrayList<>();
+        for (int k = 0; k < count; k++) {
+            double gap = highs[k] - lows[k];
+            if (gap >= 0) {
+                lower.add(point(refined[k], lows[k]));
+                upper.add(point(refined[k], highs[k]));
+            }
+            if (k + 1 < count) {
+                double nextGap = highs[k + 1] - lows[k + 1];
+                if ((gap >= 0) != (nextGap >= 0)) {
+                    // the chains meet between the two points
+                    double t = gap / (gap - nextGap);
+                    double[] pt = point(
+                            refined[k] + (refined[k + 1] - refined[k]) * t,
+                            lows[k] + (lows[k + 1] - lows[k]) * t
+                    );
+                    lower.add(pt);
+                    upper.add(pt);
+                }
+            }
+        }
+
+        List<double[]> ring = new ArrayList<>(lower);
+        for (int k = upper.size() - 1; k >= 0; k--)
+            ring.add(upper.get(k));
+        ring = clean(eps, ring);
+
+        List<List<double[]>> regions = new ArrayList<>();
+        if (ring.size() >= 3)
+            regions.add(ring);
+        return regions;
+    }
+
+    private static double[] merge(double[] a, double[] b, double from, double to) {
+        // the sorted values of both arrays within [from, to], without duplicates
+        double[] result = new double[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length || j < b.length) {
+            double v;
+            if (j >= b.length || (i < a.length && a[i] <= b[j]))
+                v = a[i++];
+            else
+                v = b[j++];
+            if (v < from || v > to)
+                continue;
+            if (n == 0 || v != result[n - 1])
+                result[n++] = v;
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private ConvexClipper() {
+    }
+}
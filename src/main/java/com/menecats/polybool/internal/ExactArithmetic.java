@@ -0,0 +1,96 @@
+package com.menecats.polybool.internal;
+
+public final class ExactArithmetic {
+    // floating point expansions, as described by Jonathan Shewchuk in "Adaptive Precision
+    // Floating-Point Arithmetic and Fast Robust Geometric Predicates"
+    // an expansion is a sum of doubles that don't overlap, sorted by increasing magnitude, so its
+    // sign is the sign of its last non-zero component
+    public static final double EPSILON = 1.1102230246251565e-16; // 2^-53, half an ulp of 1
+    private static final double SPLITTER = 134217729.0; // 2^27 + 1
+
+    // bound on the error of `(a - b) * (c - d) - (e - f) * (g - h)` evaluated with doubles,
+    // relative to `|(a - b) * (c - d)| + |(e - f) * (g - h)|`
+    public static final double DET_ERROR_BOUND = (3.0 + 16.0 * EPSILON) * EPSILON;
+
+    public static int signOfDeterminant(double a, double b, double c, double d,
+                                        double e, double f, double g, double h,
+                                        double k) {
+        // the exact sign of `(a - b) * (c - d) - (e - f) * (g - h) + k`
+        double[] d1 = twoDiff(a, b);
+        double[] d2 = twoDiff(c, d);
+        double[] d3 = twoDiff(f, e); // negated, so the second product can be added
+        double[] d4 = twoDiff(g, h);
+
+        double[] sum = new double[17];
+        int length = 0;
+        for (double x : d1) {
+            for (double y : d2) {
+                length = grow(sum, length, product(x, y));
+                length = grow(sum, length, productError(x, y));
+            }
+        }
+        for (double x : d3) {
+            for (double y : d4) {
+                length = grow(sum, length, product(x, y));
+                length = grow(sum, length, productError(x, y));
+            }
+        }
+        length = grow(sum, length, k);
+
+        for (int i = length - 1; i >= 0; i--) {
+            if (sum[i] != 0)
+                return sum[i] > 0 ? 1 : -1;
+        }
+        return 0;
+    }
+
+    private static double[] twoDiff(double a, double b) {
+        // a - b == result[0] + result[1], exactly
+        double x = a - b;
+        double bv = a - x;
+        double av = x + bv;
+        double br = bv - b;
+        double ar = a - av;
+        return new double[]{ar + br, x};
+    }
+
+    private static double product(double a, double b) {
+        return a * b;
+    }
+
+    private static double productError(double a, double b) {
+        // a * b == product(a, b) + productError(a, b), exactly
+        double x = a * b;
+
+        double c = SPLITTER * a;
+        double aHi = c - (c - a);
+        double aLo = a - aHi;
+        c = SPLITTER * b;
+        double bHi = c - (c - b);
+        double bLo = b - bHi;
+
+        double err1 = x - aHi * bHi;
+        double err2 = err1 - aLo * bHi;
+        double err3 = err2 - aHi * bLo;
+        return aLo * bLo - err3;
+    }
+
+    private static int grow(double[] e, int length, double b) {
+        // adds `b` to the expansion `e`, which gains one component
+        double q = b;
+        for (int i = 0; i < length; i++) {
+            double x = q + e[i];
+            double bv = x - q;
+            double av = x - bv;
+            double br = e[i] - bv;
+            double ar = q - av;
+            e[i] = ar + br;
+            q = x;
+        }
+        e[length] = q;
+        return length + 1;
+    }
+
+    private ExactArithmetic() {
+    }
+}
@@ -72,8 +72,9 @@ public final class GeoJSON {
     public static Geometry<?> fromPolygon(final Epsilon epsilon,
                                           Polygon poly) {
 
-        // make sure out polygon is clean
-        poly = polygon(epsilon, segments(epsilon, poly));
+        // make sure out polygon is clean, results of the operations already are
+        if (!poly.isClean())
+            poly = polygon(epsilon, segments(epsilon, poly));
 
         // calculate inside heirarchy
         //
@@ -59,8 +59,13 @@ public class LinkedList<T> {
     }
 
     public void insertBefore(LinkedList<T> node, Predicate<LinkedList<T>> check) {
-        LinkedList<T> last = this;
-        LinkedList<T> here = this.next;
+        this.insertBefore(node, this, check);
+    }
+
+    public void insertBefore(LinkedList<T> node, LinkedList<T> from, Predicate<LinkedList<T>> check) {
+        // same as above, but only looks at the nodes after `from`, which must belong to this list
+        LinkedList<T> last = from;
+        LinkedList<T> here = from.next;
 
         while (here != null && !here.root) {
             if (check.test(here)) {
@@ -0,0 +1,64 @@
+package com.menecats.polybool.internal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public final class MappedFile implements Closeable {
+    // a read-only file mapped in memory, in chunks, since a single mapping can't exceed 2GB
+    // values are read at absolute positions, and never span two chunks as long as ints are
+    // aligned to 4 bytes and longs and doubles to 8
+    private static final int CHUNK_BITS = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;
+    private final long size;
+
+    private MappedFile(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+
+        int count = (int) ((this.size + CHUNK_MASK) >>> CHUNK_BITS);
+        this.chunks = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long start = (long) i << CHUNK_BITS;
+            this.chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(1L << CHUNK_BITS, this.size - start));
+        }
+    }
+
+    public static MappedFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new MappedFile(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long size() {
+        return this.size;
+    }
+
+    public int getInt(long pos) {
+        return this.chunks[(int) (pos >>> CHUNK_BITS)].getInt((int) (pos & CHUNK_MASK));
+    }
+
+    public long getLong(long pos) {
+        return this.chunks[(int) (pos >>> CHUNK_BITS)].getLong((int) (pos & CHUNK_MASK));
+    }
+
+    public double getDouble(long pos) {
+        return this.chunks[(int) (pos >>> CHUNK_BITS)].getDouble((int) (pos & CHUNK_MASK));
+    }
+
+    @Override
+    public void close() throws IOException {
+        // the mappings themselves are released by the garbage collector
+        this.channel.close();
+    }
+}
@@ -0,0 +1,92 @@
+package com.menecats.polybool.internal;
+
+import com.menecats.polybool.Epsilon;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.menecats.polybool.internal.SegmentBuffer.*;
+
+public class MultiIntersecter extends AbstractIntersecter {
+    public static final int MAX_INPUTS = 64;
+
+    // the fill of k polygons can't be packed in the fill byte, so every segment gets two bitsets
+    // bit i of `toggles` is set if the segment is an edge of polygon i (filling only one side)
+    // bit i of `above` is set if polygon i fills the area above the segment
+    // the area below is always `above ^ toggles`
+    private long[] toggles = new long[16];
+    private long[] above = new long[16];
+    private long invertedMask;
+
+    public MultiIntersecter(Epsilon eps) {
+        super(eps);
+    }
+
+    @Override
+    protected int segmentCopy(double x1, double y1, double x2, double y2, SegmentBuffer source, int seg) {
+        int copy = super.segmentCopy(x1, y1, x2, y2, source, seg);
+        if (source == this.segs)
+            this.masks(copy, this.toggles[seg]); // a segment divided by the sweep
+        return copy;
+    }
+
+    @Override
+    protected boolean segmentsMerge(IntersecterContent ev, IntersecterContent eve) {
+        // segments of different polygons lying on top of each other, `eve` becomes an edge of
+        // all of them
+        // `eve` is already in the status, so the area below it stays the same, and the new edges
+        // toggle the area above it
+        this.toggles[eve.seg] ^= this.toggles[ev.seg];
+        this.above[eve.seg] ^= this.toggles[ev.seg];
+        return true;
+    }
+
+    @Override
+    protected void segmentFill(IntersecterContent ev, IntersecterContent below,
+                               boolean primaryPolyInverted, boolean secondaryPolyInverted) {
+        // the area below us is filled by whatever fills the area above the segment below, or, if
+        // nothing is below us, by the inverted polygons
+        long fillBelow = below == null ? this.invertedMask : this.above[below.seg];
+        this.above[ev.seg] = fillBelow ^ this.toggles[ev.seg];
+    }
+
+    private void masks(int seg, long toggles) {
+        if (seg >= this.toggles.length) {
+            int capacity = Math.max(seg + 1, this.toggles.length * 2);
+            this.toggles = Arrays.copyOf(this.toggles, capacity);
+            this.above = Arrays.copyOf(this.above, capacity);
+        }
+        this.toggles[seg] = toggles;
+        this.above[seg] = 0;
+    }
+
+    public MultiSegments calculate(List<SegmentBuffer> inputs, boolean[] inverted) {
+        // inputs come from the self-intersection API, one for each polygon
+        // returns the segments of all polygons, with the polygons filling each side of them
+        if (inputs.size() > MAX_INPUTS)
+            throw new IllegalArgumentException("PolyBool: At most " + MAX_INPUTS + " polygons can be combined at once");
+
+        for (int p = 0; p < inputs.size(); p++) {
+            SegmentBuffer segments = inputs.get(p);
+            if (inverted[p])
+                this.invertedMask |= 1L << p;
+
+            for (int i = 0; i < segments.size(); i++) {
+                // edges that don't separate an inside from an outside don't toggle anything, but
+                // they're still swept, so the result has the same vertices as the inputs
+                boolean toggle = segments.is(i, MY_ABOVE) != segments.is(i, MY_BELOW);
+                int seg = this.segs.add(segments, i, 0);
+                this.masks(seg, toggle ? 1L << p : 0);
+                this.eventAddSegment(seg, true);
+            }
+        }
+
+        MultiSegments result = new MultiSegments(inputs.size(), this.invertedMask, this.segs.size());
+        this.baseCalculate(false, false, (segs, seg) -> {
+            long a = this.above[seg];
+            result.add(segs, seg, a, a ^ this.toggles[seg]);
+            return true;
+        });
+        return result;
+    }
+}
@@ -0,0 +1,55 @@
+package com.menecats.polybool.internal;
+
+import java.util.Arrays;
+
+public final class MultiSegments {
+    // the result of combining k polygons: the segments, and for each of them the set of polygons
+    // filling the area above and below it, as bitsets where bit i stands for polygon i
+    private final int inputs;
+    private final long inverted; // the polygons filling the area far away from every segment
+    private final SegmentBuffer segments;
+    private long[] above;
+    private long[] below;
+
+    MultiSegments(int inputs, long inverted, int capacity) {
+        this.inputs = inputs;
+        this.inverted = inverted;
+        this.segments = new SegmentBuffer(capacity);
+        this.above = new long[Math.max(capacity, 1)];
+        this.below = new long[Math.max(capacity, 1)];
+    }
+
+    void add(SegmentBuffer segs, int seg, long above, long below) {
+        int index = this.segments.add(segs, seg, 0);
+        if (index == this.above.length) {
+            this.above = Arrays.copyOf(this.above, index * 2);
+            this.below = Arrays.copyOf(this.below, index * 2);
+        }
+        this.above[index] = above;
+        this.below[index] = below;
+    }
+
+    public int inputs() {
+        return this.inputs;
+    }
+
+    public long inverted() {
+        return this.inverted;
+    }
+
+    public long all() {
+        return this.inputs == 64 ? -1L : (1L << this.inputs) - 1;
+    }
+
+    public SegmentBuffer segments() {
+        return this.segments;
+    }
+
+    public long above(int index) {
+        return this.above[index];
+    }
+
+    public long below(int index) {
+        return this.below[index];
+    }
+}
@@ -0,0 +1,55 @@
+package com.menecats.polybool.internal;
+
+import java.util.function.LongPredicate;
+
+import static com.menecats.polybool.internal.SegmentBuffer.*;
+
+public class MultiSelector {
+    // a segment is kept when the selection is true on exactly one of its sides, and it is filled
+    // on that side
+    public static SegmentBuffer select(MultiSegments multi, LongPredicate selection) {
+        SegmentBuffer segments = multi.segments();
+        int[] index = new int[segments.size()];
+        byte[] fill = new byte[segments.size()];
+        int size = 0;
+
+        for (int i = 0; i < segments.size(); i++) {
+            boolean above = selection.test(multi.above(i));
+            boolean below = selection.test(multi.below(i));
+            if (above != below) {
+                index[size] = i;
+                fill[size] = (byte) (MY_KNOWN | (above ? MY_ABOVE : MY_BELOW));
+                size++;
+            }
+        }
+
+        return segments.view(index, fill, size);
+    }
+
+    public static boolean inverted(MultiSegments multi, LongPredicate selection) {
+        // the result is inverted if the selection holds far away from every segment
+        return selection.test(multi.inverted());
+    }
+
+    public static LongPredicate union() {
+        // covered by any polygon
+        return mask -> mask != 0;
+    }
+
+    public static LongPredicate intersect(MultiSegments multi) {
+        // covered by every polygon
+        long all = multi.all();
+        return mask -> mask == all;
+    }
+
+    public static LongPredicate difference(int input) {
+        // covered by the polygon `input`, and by none of the others
+        long only = 1L << input;
+        return mask -> mask == only;
+    }
+
+    public static LongPredicate atLeast(int count) {
+        // covered by `count` polygons or more
+        return mask -> Long.bitCount(mask) >= count;
+    }
+}
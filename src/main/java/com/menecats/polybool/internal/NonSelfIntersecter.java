@@ -1,25 +1,124 @@
 package com.menecats.polybool.internal;
 
 import com.menecats.polybool.Epsilon;
-import com.menecats.polybool.models.Segment;
 
-import java.util.List;
+import static com.menecats.polybool.internal.SegmentBuffer.*;
 
 public class NonSelfIntersecter extends AbstractIntersecter {
     public NonSelfIntersecter(Epsilon eps) {
-        super(false, eps);
+        super(eps);
     }
 
-    public List<Segment> calculate(List<Segment> segments1, boolean inverted1, List<Segment> segments2, boolean inverted2) {
+    @Override
+    protected boolean segmentsMerge(IntersecterContent ev, IntersecterContent eve) {
+        // merge two segments that belong to different polygons
+        // each segment has distinct knowledge, so no special logic is needed
+        // note that this can only happen once per segment in this phase, because we
+        // are guaranteed that all self-intersections are gone
+        int mine = this.segs.fill(ev.seg);
+        this.segs.setFill(eve.seg, (this.segs.fill(eve.seg) & ~OTHER) | (swap(mine) & OTHER));
+        return true;
+    }
+
+    @Override
+    protected void segmentFill(IntersecterContent ev, IntersecterContent below,
+                               boolean primaryPolyInverted, boolean secondaryPolyInverted) {
+        // now we fill in any missing transition information, since we are all-knowing
+        // at this point
+
+        int fill = this.segs.fill(ev.seg);
+        if ((fill & OTHER_KNOWN) == 0) {
+            // if we don't have other information, then we need to figure out if we're
+            // inside the other polygon
+            boolean inside;
+            if (below == null) {
+                // if nothing is below us, then we're inside if the other polygon is
+                // inverted
+                inside = ev.primary
+                        ? secondaryPolyInverted
+                        : primaryPolyInverted;
+            } else { // otherwise, something is below us
+                // so copy the below segment's other polygon's above
+                if (ev.primary == below.primary)
+                    inside = this.segs.is(below.seg, OTHER_ABOVE);
+                else
+                    inside = this.segs.is(below.seg, MY_ABOVE);
+            }
+            this.segs.setFill(ev.seg, fill | OTHER_KNOWN | (inside ? OTHER_ABOVE | OTHER_BELOW : 0));
+        }
+    }
+
+    public SegmentBuffer calculate(SegmentBuffer segments1, boolean inverted1, SegmentBuffer segments2, boolean inverted2) {
         // segmentsX come from the self-intersection API, or this API
         // invertedX is whether we treat that list of segments as an inverted polygon or not
         // returns segments that can be used for further operations
-        for (Segment seg : segments1) {
-            this.eventAddSegment(this.segmentCopy(seg.start, seg.end, seg), true);
+        SegmentBuffer segments = new SegmentBuffer(segments1.size() + segments2.size());
+        this.calculate(segments1, inverted1, segments2, inverted2, (segs, index) -> {
+            segments.add(segs, index, segs.fill(index));
+            return true;
+        });
+        return segments;
+    }
+
+    public void calculate(SegmentBuffer segments1, boolean inverted1, SegmentBuffer segments2, boolean inverted2, SegmentReport report) {
+        // same as above, but streams the combined segments to `report` instead of collecting them
+        // the sweep stops as soon as `report` returns false
+        //
+        // the segments routed around the sweep are reported where the sweep would have reported
+        // them, right before the first swept segment whose end comes after theirs: the chainer
+        // joins the regions touching at a point by the order of their segments, and a different
+        // order turns two regions touching at a vertex into one ring crossing itself there
+        SegmentBuffer routed = this.addSegments(segments1, inverted1, segments2, inverted2);
+        int[] order = endOrder(routed);
+        int[] next = {0};
+        boolean[] stopped = {false};
+        this.baseCalculate(inverted1, inverted2, (segs, index) -> {
+            while (next[0] < order.length && this.endsBefore(routed, order[next[0]], segs, index)) {
+                if (!report.report(routed, order[next[0]++])) {
+                    stopped[0] = true;
+                    return false;
+                }
+            }
+            stopped[0] = !report.report(segs, index);
+            return !stopped[0];
+        });
+        while (!stopped[0] && next[0] < order.length)
+            stopped[0] = !report.report(routed, order[next[0]++]);
+    }
+
+    private SegmentBuffer addSegments(SegmentBuffer segments1, boolean inverted1, SegmentBuffer segments2, boolean inverted2) {
+        // an edge on the left, on the right, or above the bounding box of the other polygon can't
+        // meet it, and the other polygon is the same on both of its sides (filled only if it's
+        // inverted), so the edge goes around the sweep, and is returned with its final fill
+        // edges below the box still go through the sweep: the segments above them find out if
+        // they're inside the other polygon through them
+        BoundingBox bounds1 = BoundingBox.of(segments1);
+        BoundingBox bounds2 = BoundingBox.of(segments2);
+        double e = this.eps.epsilonAt(Math.max(bounds1.magnitude(), bounds2.magnitude()));
+        SegmentBuffer routed = new SegmentBuffer();
+
+        int other2 = OTHER_KNOWN | (inverted2 ? OTHER_ABOVE | OTHER_BELOW : 0);
+        for (int i = 0; i < segments1.size(); i++) {
+            if (apart(segments1, i, bounds2, e))
+                routed.add(segments1, i, (segments1.fill(i) & MY) | other2);
+            else
+                this.eventAddSegment(this.segmentCopy(segments1.x1(i), segments1.y1(i), segments1.x2(i), segments1.y2(i), segments1, i), true);
         }
-        for (Segment seg : segments2) {
-            this.eventAddSegment(this.segmentCopy(seg.start, seg.end, seg), false);
+
+        // `myFill` points to the primary polygon
+        int other1 = MY_KNOWN | (inverted1 ? MY_ABOVE | MY_BELOW : 0);
+        for (int i = 0; i < segments2.size(); i++) {
+            if (apart(segments2, i, bounds1, e))
+                routed.add(segments2, i, swap(segments2.fill(i) & MY) | other1);
+            else
+                this.eventAddSegment(this.segmentCopy(segments2.x1(i), segments2.y1(i), segments2.x2(i), segments2.y2(i), segments2, i), false);
         }
-        return this.baseCalculate(inverted1, inverted2);
+        return routed;
+    }
+
+    private static boolean apart(SegmentBuffer segments, int i, BoundingBox other, double e) {
+        return Math.max(segments.x1(i), segments.x2(i)) < other.minX - e ||
+                Math.min(segments.x1(i), segments.x2(i)) > other.maxX + e ||
+                Math.min(segments.y1(i), segments.y2(i)) > other.maxY + e;
     }
 }
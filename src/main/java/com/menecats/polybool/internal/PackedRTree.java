@@ -0,0 +1,156 @@
+package com.menecats.polybool.internal;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+public final class PackedRTree {
+    // a static R-tree, bulk loaded with Sort-Tile-Recursive and packed in flat arrays
+    // the leaves come first, then every upper level, up to the root at the very end
+    public static final int NODE_SIZE = 16;
+
+    private final double[] boxes; // minX, minY, maxX, maxY of every node
+    private final int[] indices; // leaves: the index of the item, upper levels: the position of the first child
+    private final int[] levelEnds; // position after the last node of every level
+
+    public PackedRTree(List<BoundingBox> items) {
+        int n = items.size();
+
+        // count the nodes of every level
+        int levels = 1;
+        int total = n;
+        for (int count = n; count > 1; levels++) {
+            count = (count + NODE_SIZE - 1) / NODE_SIZE;
+            total += count;
+        }
+        this.boxes = new double[Math.max(total, 1) * 4];
+        this.indices = new int[Math.max(total, 1)];
+        this.levelEnds = new int[levels];
+
+        // sort the items in tiles: vertical slices by x, then by y inside every slice
+        int[] order = new int[n];
+        double[] cx = new double[n];
+        double[] cy = new double[n];
+        for (int i = 0; i < n; i++) {
+            BoundingBox box = items.get(i);
+            order[i] = i;
+            cx[i] = center(box.minX, box.maxX);
+            cy[i] = center(box.minY, box.maxY);
+        }
+        sort(order, cx, 0, n - 1);
+
+        int leaves = (n + NODE_SIZE - 1) / NODE_SIZE;
+        int slices = (int) Math.ceil(Math.sqrt(leaves));
+        int sliceSize = slices == 0 ? n : slices * NODE_SIZE;
+        for (int start = 0; start < n; start += sliceSize)
+            sort(order, cy, start, Math.min(start + sliceSize, n) - 1);
+
+        for (int i = 0; i < n; i++) {
+            BoundingBox box = items.get(order[i]);
+            this.set(i, box.minX, box.minY, box.maxX, box.maxY, order[i]);
+        }
+        this.levelEnds[0] = n;
+
+        // every NODE_SIZE consecutive nodes get a parent on the level above
+        int pos = n;
+        for (int level = 1, start = 0; level < levels; level++) {
+            int end = this.levelEnds[level - 1];
+            for (int child = start; child < end; child += NODE_SIZE) {
+                double minX = Double.POSITIVE_INFINITY;
+                double minY = Double.POSITIVE_INFINITY;
+                double maxX = Double.NEGATIVE_INFINITY;
+                double maxY = Double.NEGATIVE_INFINITY;
+                for (int c = child; c < Math.min(child + NODE_SIZE, end); c++) {
+                    minX = Math.min(minX, this.boxes[c * 4]);
+                    minY = Math.min(minY, this.boxes[c * 4 + 1]);
+                    maxX = Math.max(maxX, this.boxes[c * 4 + 2]);
+                    maxY = Math.max(maxY, this.boxes[c * 4 + 3]);
+                }
+                this.set(pos++, minX, minY, maxX, maxY, child);
+            }
+            this.levelEnds[level] = pos;
+            start = end;
+        }
+    }
+
+    private static double center(double min, double max) {
+        // empty and unbounded boxes have no meaningful center, they can go anywhere
+        double c = min / 2 + max / 2;
+        return Double.isNaN(c) || Double.isInfinite(c) ? 0 : c;
+    }
+
+    private void set(int pos, double minX, double minY, double maxX, double maxY, int index) {
+        this.boxes[pos * 4] = minX;
+        this.boxes[pos * 4 + 1] = minY;
+        this.boxes[pos * 4 + 2] = maxX;
+        this.boxes[pos * 4 + 3] = maxY;
+        this.indices[pos] = index;
+    }
+
+    public int size() {
+        return this.levelEnds[0];
+    }
+
+    public void search(BoundingBox query, double eps, IntConsumer visit) {
+        // calls `visit` with the index of every item whose box is within eps of `query`
+        if (this.size() == 0 || query.isEmpty())
+            return;
+
+        int[] stack = new int[16];
+        int top = 0;
+        int root = this.levelEnds[this.levelEnds.length - 1] - 1;
+        stack[top++] = root;
+        stack[top++] = this.levelEnds.length - 1;
+
+        while (top > 0) {
+            int level = stack[--top];
+            int pos = stack[--top];
+
+            if (query.minX - this.boxes[pos * 4 + 2] >= eps || this.boxes[pos * 4] - query.maxX >= eps ||
+                    query.minY - this.boxes[pos * 4 + 3] >= eps || this.boxes[pos * 4 + 1] - query.maxY >= eps)
+                continue;
+
+            if (level == 0) {
+                visit.accept(this.indices[pos]);
+                continue;
+            }
+
+            int first = this.indices[pos];
+            int end = Math.min(first + NODE_SIZE, this.levelEnds[level - 1]);
+            if (top + 2 * (end - first) > stack.length)
+                stack = Arrays.copyOf(stack, Math.max(stack.length * 2, top + 2 * (end - first)));
+            for (int child = end - 1; child >= first; child--) {
+                stack[top++] = child;
+                stack[top++] = level - 1;
+            }
+        }
+    }
+
+    static void sort(int[] order, double[] keys, int lo, int hi) {
+        // quicksort of `order` by `keys`, without boxing the indices
+        while (lo < hi) {
+            double pivot = keys[order[(lo + hi) >>> 1]];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (keys[order[i]] < pivot)
+                    i++;
+                while (keys[order[j]] > pivot)
+                    j--;
+                if (i <= j) {
+                    int t = order[i];
+                    order[i++] = order[j];
+                    order[j--] = t;
+                }
+            }
+            // recurse into the smaller half, loop on the larger one
+            if (j - lo < hi - i) {
+                sort(order, keys, lo, j);
+                lo = i;
+            } else {
+                sort(order, keys, i, hi);
+                hi = j;
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.menecats.polybool.internal;
+
+import com.menecats.polybool.Epsilon;
+import com.menecats.polybool.models.ClippedLine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.menecats.polybool.internal.SegmentBuffer.*;
+
+public class PolylineIntersecter extends NonSelfIntersecter {
+    private static class Origin {
+        final int line;
+        final int edge;
+        final boolean reversed; // true if the segment runs against the direction of the line
+        final double[] from;
+        final double[] to;
+
+        Origin(int line, int edge, boolean reversed, double[] from, double[] to) {
+            this.line = line;
+            this.edge = edge;
+            this.reversed = reversed;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    private static class Piece {
+        final Origin origin;
+        final double[] first;
+        final double[] last;
+        final double along;
+        final int kind; // 0 = outside, 1 = inside, 2 = boundary
+
+        Piece(Origin origin, SegmentBuffer segs, int seg) {
+            double[] start = {segs.x1(seg), segs.y1(seg)};
+            double[] end = {segs.x2(seg), segs.y2(seg)};
+
+            this.origin = origin;
+            this.first = origin.reversed ? end : start;
+            this.last = origin.reversed ? start : end;
+            this.along = (first[0] - origin.from[0]) * (origin.to[0] - origin.from[0]) +
+                    (first[1] - origin.from[1]) * (origin.to[1] - origin.from[1]);
+
+            // by the time segments are reported, `myFill` always refers to the polygon
+            boolean above = segs.is(seg, MY_ABOVE);
+            if (above != segs.is(seg, MY_BELOW))
+                this.kind = 2;
+            else
+                this.kind = above ? 1 : 0;
+        }
+    }
+
+    private Origin[] origins = new Origin[16]; // indexed like the segments, null for polygon segments
+
+    public PolylineIntersecter(Epsilon eps) {
+        super(eps);
+    }
+
+    public List<ClippedLine> calculate(SegmentBuffer segments, boolean inverted, List<List<double[]>> lines) {
+        // the polygon segments come from the self-intersection API, and are the primary polygon
+        // the lines are the secondary polygon, but they don't fill anything, so they can't change
+        // the fill of the polygon, they just learn on which side of it they are
+        for (int i = 0; i < segments.size(); i++) {
+            this.eventAddSegment(this.segmentCopy(segments.x1(i), segments.y1(i), segments.x2(i), segments.y2(i), segments, i), true);
+        }
+        for (int i = 0; i < lines.size(); i++) {
+            List<double[]> line = lines.get(i);
+            for (int j = 1; j < line.size(); j++) {
+                double[] pt1 = line.get(j - 1);
+                double[] pt2 = line.get(j);
+
+                int forward = this.eps.pointsCompare(pt1, pt2);
+                if (forward == 0) // zero-length edge, nothing to clip
+                    continue;
+
+                // lines don't fill anything on either side
+                int seg = this.segmentNew(
+                        forward < 0 ? pt1 : pt2,
+                        forward < 0 ? pt2 : pt1
+                );
+                this.segs.setFill(seg, MY_KNOWN);
+                this.origin(seg, new Origin(i, j, forward > 0, pt1, pt2));
+                this.eventAddSegment(seg, false);
+            }
+        }
+
+        List<Piece> pieces = new ArrayList<>();
+        this.baseCalculate(inverted, false, (segs, seg) -> {
+            Origin origin = seg < this.origins.length ? this.origins[seg] : null;
+            if (origin != null)
+                pieces.add(new Piece(origin, segs, seg));
+            return true;
+        });
+
+        // put the pieces back in the order they appear along their lines
+        pieces.sort((p1, p2) -> {
+            if (p1.origin.line != p2.origin.line)
+                return Integer.compare(p1.origin.line, p2.origin.line);
+            if (p1.origin.edge != p2.origin.edge)
+                return Integer.compare(p1.origin.edge, p2.origin.edge);
+            return Double.compare(p1.along, p2.along);
+        });
+
+        List<ClippedLine> result = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++)
+            result.add(new ClippedLine());
+
+        Piece prev = null;
+        List<double[]> run = null;
+        for (Piece piece : pieces) {
+            boolean continues = prev != null &&
+                    prev.origin.line == piece.origin.line &&
+                    prev.kind == piece.kind &&
+                    this.eps.pointsSame(prev.last, piece.first);
+
+            if (!continues) {
+                run = new ArrayList<>();
+                run.add(piece.first);
+                run.add(piece.last);
+
+                ClippedLine clipped = result.get(piece.origin.line);
+                if (piece.kind == 1)
+                    clipped.getInside().add(run);
+                else if (piece.kind == 0)
+                    clipped.getOutside().add(run);
+                else
+                    clipped.getBoundary().add(run);
+            } else if (prev.origin.edge == piece.origin.edge) {
+                // the sweep divided the edge, but both parts ended up on the same side, so the
+                // division point isn't needed
+                run.set(run.size() - 1, piece.last);
+            } else {
+                run.add(piece.last);
+            }
+            prev = piece;
+        }
+
+        return result;
+    }
+
+    private void origin(int seg, Origin origin) {
+        if (seg >= this.origins.length)
+            this.origins = Arrays.copyOf(this.origins, Math.max(seg + 1, this.origins.length * 2));
+        this.origins[seg] = origin;
+    }
+
+    @Override
+    protected int segmentCopy(double x1, double y1, double x2, double y2, SegmentBuffer source, int seg) {
+        int copy = super.segmentCopy(x1, y1, x2, y2, source, seg);
+        if (source == this.segs && seg < this.origins.length && this.origins[seg] != null)
+            this.origin(copy, this.origins[seg]); // a line divided by the sweep
+        return copy;
+    }
+
+    @Override
+    protected boolean segmentsMerge(IntersecterContent ev, IntersecterContent eve) {
+        // lines are never thrown away, a line lying on a polygon edge just takes the fill of
+        // that edge, which marks it as being on the boundary
+        if (ev.primary != eve.primary) {
+            IntersecterContent edge = ev.primary ? ev : eve;
+            IntersecterContent line = ev.primary ? eve : ev;
+            this.segs.setFill(line.seg, (this.segs.fill(line.seg) & ~OTHER) | (swap(this.segs.fill(edge.seg)) & OTHER));
+        }
+        return false;
+    }
+}
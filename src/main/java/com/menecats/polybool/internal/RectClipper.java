@@ -0,0 +1,480 @@
+package com.menecats.polybool.internal;
+
+import com.menecats.polybool.Epsilon;
+import com.menecats.polybool.models.Polygon;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.menecats.polybool.helpers.PolyBoolHelper.point;
+
+public final class RectClipper {
+    // clips every region on its own against the four sides of the rectangle (Sutherland-Hodgman),
+    // which keeps the even-odd meaning of the regions, as every region is only cut, never merged
+    // with the others
+    //
+    // when a region leaves the rectangle and comes back, the clipped ring runs along a side of the
+    // rectangle and back, so the ring is then split in the paths through the rectangle, and in the
+    // parts of the sides covered an odd number of times, which are joined again into rings without
+    // those zero-width edges
+    //
+    // the clipped rings of different regions can still overlap, or share the stretches of the sides
+    // they were cut along, so whenever a region was cut, the input wasn't built by the library, or
+    // it is inverted, the clipped rings are resolved against each other with the usual sweep, which
+    // only sees the points left inside the rectangle
+    private static final int NONE = -1;
+    private static final int BOTTOM = 0;
+    private static final int RIGHT = 1;
+    private static final int TOP = 2;
+    private static final int LEFT = 3;
+
+    private final Epsilon eps;
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+
+    // distance of the corners from (minX, minY), going counter-clockwise along the sides
+    private final double bottomRight;
+    private final double topRight;
+    private final double topLeft;
+    private final double perimeter;
+
+    // the ring being clipped, packed as x, y pairs, and the output of the current pass
+    private double[] ring = new double[64];
+    private double[] next = new double[64];
+    private int count;
+    private int nextCount;
+    private double tolerance; // the epsilon as a distance, for the region being clipped
+    private boolean cut; // some region crossed the sides of the rectangle
+
+    private RectClipper(Epsilon eps, double minX, double minY, double maxX, double maxY) {
+        this.eps = eps;
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+
+        this.bottomRight = maxX - minX;
+        this.topRight = this.bottomRight + (maxY - minY);
+        this.topLeft = this.topRight + (maxX - minX);
+        this.perimeter = this.topLeft + (maxY - minY);
+    }
+
+    public static List<List<double[]>> clip(Epsilon eps, Polygon polygon,
+                                            double minX, double minY, double maxX, double maxY) {
+        RectClipper clipper = new RectClipper(eps, minX, minY, maxX, maxY);
+        List<List<double[]>> regions = new ArrayList<>();
+
+        // the inside of an inverted polygon is the whole rectangle, except for its regions
+        if (polygon.isInverted())
+            regions.add(clipper.rectangle());
+        for (List<double[]> region : polygon.getRegions())
+            clipper.clipRegion(region, regions);
+
+        // the rings of a clean polygon that were kept whole are still clean
+        if (regions.isEmpty() || (polygon.isClean() && !polygon.isInverted() && !clipper.cut))
+            return regions;
+        return resolve(eps, regions);
+    }
+
+    private static List<List<double[]>> resolve(Epsilon eps, List<List<double[]>> regions) {
+        // the area covered by an odd number of rings, as a clean set of regions
+        SelfIntersecter self = new SelfIntersecter(eps);
+        for (List<double[]> region : regions)
+            self.addRegion(region);
+        SegmentBuffer combined = new NonSelfIntersecter(eps).calculate(self.calculate(false), false, new SegmentBuffer(), false);
+        List<List<double[]>> resolved = SegmentChainer.chain(SegmentSelector.union(combined), eps);
+        if (resolved == null)
+            throw new IllegalStateException("PolyBool: The clipped regions couldn't be chained");
+        return resolved;
+    }
+
+    private List<double[]> rectangle() {
+        List<double[]> rectangle = new ArrayList<>(4);
+        rectangle.add(point(this.minX, this.minY));
+        rectangle.add(point(this.maxX, this.minY));
+        rectangle.add(point(this.maxX, this.maxY));
+        rectangle.add(point(this.minX, this.maxY));
+        return rectangle;
+    }
+
+    private void clipRegion(List<double[]> region, List<List<double[]>> regions) {
+        if (region.size() < 3)
+            return;
+
+        double rMinX = Double.POSITIVE_INFINITY;
+        double rMinY = Double.POSITIVE_INFINITY;
+        double rMaxX = Double.NEGATIVE_INFINITY;
+        double rMaxY = Double.NEGATIVE_INFINITY;
+        for (double[] pt : region) {
+            rMinX = Math.min(rMinX, pt[0]);
+            rMinY = Math.min(rMinY, pt[1]);
+            rMaxX = Math.max(rMaxX, pt[0]);
+            rMaxY = Math.max(rMaxY, pt[1]);
+        }
+        BoundingBox rectangle = new BoundingBox(this.minX, this.minY, this.maxX, this.maxY);
+        BoundingBox bounds = new BoundingBox(rMinX, rMinY, rMaxX, rMaxY);
+        double e = this.tolerance = this.eps.epsilonAt(Math.max(rectangle.magnitude(), bounds.magnitude()));
+
+        // regions apart from the rectangle are dropped, and regions well inside it are kept
+        if (rMinX >= this.maxX - e || rMaxX <= this.minX + e || rMinY >= this.maxY - e || rMaxY <= this.minY + e)
+            return;
+        if (rMinX > this.minX + e && rMaxX < this.maxX - e && rMinY > this.minY + e && rMaxY < this.maxY - e) {
+            this.emit(region, regions);
+            return;
+        }
+
+        if (this.ring.length < region.size() * 2)
+            this.ring = new double[region.size() * 2];
+        this.count = 0;
+        for (double[] pt : region) {
+            this.ring[this.count * 2] = pt[0];
+            this.ring[this.count * 2 + 1] = pt[1];
+            this.count++;
+        }
+
+        this.cut = true;
+        this.clipSide(0, this.minX, true);
+        this.clipSide(0, this.maxX, false);
+        this.clipSide(1, this.minY, true);
+        this.clipSide(1, this.maxY, false);
+        if (this.count < 3)
+            return;
+
+        this.split(regions);
+    }
+
+    private void clipSide(int axis, double bound, boolean keepAbove) {
+        // keeps the part of the ring on one side of the line `coordinate[axis] == bound`
+        // points within epsilon of the line are moved on it, so the edges along it are exact
+        double e = this.tolerance;
+        double[] src = this.ring;
+        int n = this.count;
+        if (n < 3) {
+            // nothing left of the ring after the previous sides
+            this.count = 0;
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            if (Math.abs(src[i * 2 + axis] - bound) <= e)
+                src[i * 2 + axis] = bound;
+        }
+
+        this.nextCount = 0;
+        int other = 1 - axis;
+        int prev = n - 1;
+        boolean prevIn = keepAbove ? src[prev * 2 + axis] >= bound : src[prev * 2 + axis] <= bound;
+        for (int i = 0; i < n; i++) {
+            boolean in = keepAbove ? src[i * 2 + axis] >= bound : src[i * 2 + axis] <= bound;
+            if (in != prevIn) {
+                // the edge crosses the line
+                double p = src[prev * 2 + axis];
+                double t = (bound - p) / (src[i * 2 + axis] - p);
+                double o = src[prev * 2 + other] + t * (src[i * 2 + other] - src[prev * 2 + other]);
+                if (axis == 0)
+                    this.push(bound, o);
+                else
+                    this.push(o, bound);
+            }
+            if (in)
+                this.push(src[i * 2], src[i * 2 + 1]);
+            prev = i;
+            prevIn = in;
+        }
+
+        // the ring is closed, so its last point can't be its first one too
+        int last = this.nextCount - 1;
+        if (last > 0 && this.next[0] == this.next[last * 2] && this.next[1] == this.next[last * 2 + 1])
+            this.nextCount--;
+
+        this.ring = this.next;
+        this.next = src;
+        this.count = this.nextCount;
+    }
+
+    private void push(double x, double y) {
+        int c = this.nextCount;
+        if (c > 0 && this.next[c * 2 - 2] == x && this.next[c * 2 - 1] == y)
+            return;
+        if (this.next.length < c * 2 + 2)
+            this.next = Arrays.copyOf(this.next, this.next.length * 2);
+        this.next[c * 2] = x;
+        this.next[c * 2 + 1] = y;
+        this.nextCount++;
+    }
+
+    private int side(int i, int j) {
+        // the side of the rectangle the edge from point i to point j lies on, if any
+        double[] r = this.ring;
+        if (r[i * 2 + 1] == this.minY && r[j * 2 + 1] == this.minY)
+            return BOTTOM;
+        if (r[i * 2] == this.maxX && r[j * 2] == this.maxX)
+            return RIGHT;
+        if (r[i * 2 + 1] == this.maxY && r[j * 2 + 1] == this.maxY)
+            return TOP;
+        if (r[i * 2] == this.minX && r[j * 2] == this.minX)
+            return LEFT;
+        return NONE;
+    }
+
+    private double offset(int side, double x, double y) {
+        // distance of a point on a side from (minX, minY), going counter-clockwise
+        switch (side) {
+            case BOTTOM:
+                return x - this.minX;
+            case RIGHT:
+                return this.bottomRight + (y - this.minY);
+            case TOP:
+                return this.topRight + (this.maxX - x);
+            default:
+                return this.topLeft + (this.maxY - y);
+        }
+    }
+
+    private double offset(double x, double y) {
+        // same as above, for a point on any side
+        if (y == this.minY && x < this.maxX)
+            return this.offset(BOTTOM, x, y);
+        if (x == this.maxX && y < this.maxY)
+            return this.offset(RIGHT, x, y);
+        if (y == this.maxY && x > this.minX)
+            return this.offset(TOP, x, y);
+        return this.offset(LEFT, x, y);
+    }
+
+    private void split(List<List<double[]>> regions) {
+        int n = this.count;
+        double[] r = this.ring;
+
+        int[] sides = new int[n];
+        int first = NONE;
+        int boundaries = 0;
+        for (int i = 0; i < n; i++) {
+            sides[i] = this.side(i, (i + 1) % n);
+            if (sides[i] != NONE) {
+                if (first == NONE)
+                    first = i;
+                boundaries++;
+            }
+        }
+        if (first == NONE) {
+            // the ring never runs along the rectangle
+            this.emit(this.points(r, 0, n), regions);
+            return;
+        }
+
+        // every edge along a side covers a stretch of the perimeter, so the coverage changes
+        // parity at both its ends
+        double[] toggles = new double[boundaries * 2];
+        double[] togglePoints = new double[boundaries * 4];
+        int t = 0;
+        for (int i = 0; i < n; i++) {
+            if (sides[i] == NONE)
+                continue;
+            int j = (i + 1) % n;
+            for (int k : new int[]{i, j}) {
+                toggles[t] = this.offset(sides[i], r[k * 2], r[k * 2 + 1]);
+                togglePoints[t * 2] = r[k * 2];
+                togglePoints[t * 2 + 1] = r[k * 2 + 1];
+                t++;
+            }
+        }
+
+        List<double[]> pieces = new ArrayList<>();
+        List<Boolean> arcs = new ArrayList<>();
+        List<double[]> ends = new ArrayList<>(); // offset of the start and end of every piece
+
+        // the stretches covered an odd number of times
+        int[] order = new int[t];
+        for (int i = 0; i < t; i++)
+            order[i] = i;
+        PackedRTree.sort(order, toggles, 0, t - 1);
+        boolean odd = false;
+        double[] arc = null;
+        int arcLength = 0;
+        double arcStart = 0;
+        for (int i = 0; i < t; ) {
+            int j = i;
+            while (j < t && toggles[order[j]] == toggles[order[i]])
+                j++;
+            if (((j - i) & 1) != 0) {
+                double s = toggles[order[i]];
+                double x = togglePoints[order[i] * 2];
+                double y = togglePoints[order[i] * 2 + 1];
+                if (!odd) {
+                    arc = new double[16];
+                    arc[0] = x;
+                    arc[1] = y;
+                    arcLength = 1;
+                    arcStart = s;
+                } else {
+                    // the corners passed on the way
+                    double[] corners = new double[]{
+                            this.bottomRight, this.maxX, this.minY,
+                            this.topRight, this.maxX, this.maxY,
+                            this.topLeft, this.minX, this.maxY
+                    };
+                    for (int c = 0; c < corners.length; c += 3) {
+                        if (corners[c] > arcStart && corners[c] < s) {
+                            arc[arcLength * 2] = corners[c + 1];
+                            arc[arcLength * 2 + 1] = corners[c + 2];
+                            arcLength++;
+                        }
+                    }
+                    arc[arcLength * 2] = x;
+                    arc[arcLength * 2 + 1] = y;
+                    arcLength++;
+                    pieces.add(Arrays.copyOf(arc, arcLength * 2));
+                    arcs.add(true);
+                    ends.add(new double[]{arcStart, s});
+                }
+                odd = !odd;
+            }
+            i = j;
+        }
+
+        // a stretch that ends at (minX, minY) goes on with the one that starts there
+        int arcCount = pieces.size();
+        if (arcCount > 0 && ends.get(0)[0] == 0 && ends.get(arcCount - 1)[1] == this.perimeter) {
+            if (arcCount == 1) {
+                // the whole perimeter, which is a ring on its own
+                double[] whole = pieces.remove(0);
+                arcs.remove(0);
+                ends.remove(0);
+                arcCount--;
+                this.emit(this.points(whole, 0, whole.length / 2 - 1), regions);
+            } else {
+                double[] head = pieces.remove(0);
+                double[] tail = pieces.get(arcCount - 2);
+                double[] merged = Arrays.copyOf(tail, tail.length + head.length - 2);
+                System.arraycopy(head, 2, merged, tail.length, head.length - 2);
+                pieces.set(arcCount - 2, merged);
+                arcs.remove(0);
+                double end = ends.remove(0)[1];
+                ends.get(arcCount - 2)[1] = end;
+                arcCount--;
+            }
+        }
+        for (double[] end : ends) {
+            if (end[1] == this.perimeter)
+                end[1] = 0;
+        }
+
+        // the paths through the rectangle, between two edges along the sides
+        double[] path = new double[16];
+        int pathLength = 0;
+        for (int k = 1; k <= n; k++) {
+            int i = (first + k) % n;
+            if (sides[i] == NONE) {
+                int j = (i + 1) % n;
+                if (path.length < pathLength * 2 + 4)
+                    path = Arrays.copyOf(path, path.length * 2);
+                if (pathLength == 0) {
+                    path[0] = r[i * 2];
+                    path[1] = r[i * 2 + 1];
+                    pathLength = 1;
+                }
+                path[pathLength * 2] = r[j * 2];
+                path[pathLength * 2 + 1] = r[j * 2 + 1];
+                pathLength++;
+            } else if (pathLength > 0) {
+                pieces.add(Arrays.copyOf(path, pathLength * 2));
+                arcs.add(false);
+                ends.add(new double[]{
+                        this.offset(path[0], path[1]),
+                        this.offset(path[pathLength * 2 - 2], path[pathLength * 2 - 1])
+                });
+                pathLength = 0;
+            }
+        }
+
+        this.join(pieces, arcs, ends, regions);
+    }
+
+    private void join(List<double[]> pieces, List<Boolean> arcs, List<double[]> ends, List<List<double[]>> regions) {
+        // every point where pieces meet is shared by an even number of piece ends, so the pieces
+        // are followed from end to end until they get back where they started
+        int pieceCount = pieces.size();
+        if (pieceCount == 0)
+            return;
+
+        double[] offsets = new double[pieceCount * 2];
+        int[] order = new int[pieceCount * 2];
+        for (int p = 0; p < pieceCount; p++) {
+            offsets[p * 2] = ends.get(p)[0];
+            offsets[p * 2 + 1] = ends.get(p)[1];
+        }
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        PackedRTree.sort(order, offsets, 0, order.length - 1);
+
+        // the ends at the same point are next to each other in `order`
+        int[] groupOf = new int[order.length];
+        int[] groupStart = new int[order.length + 1];
+        int groups = 0;
+        for (int i = 0; i < order.length; i++) {
+            if (i == 0 || offsets[order[i]] != offsets[order[i - 1]])
+                groupStart[groups++] = i;
+            groupOf[order[i]] = groups - 1;
+        }
+        groupStart[groups] = order.length;
+
+        boolean[] used = new boolean[pieceCount];
+        for (int start = 0; start < pieceCount; start++) {
+            if (used[start])
+                continue;
+
+            List<double[]> ring = new ArrayList<>();
+            int startGroup = groupOf[start * 2];
+            int end = start * 2;
+            while (true) {
+                int piece = end / 2;
+                used[piece] = true;
+                double[] points = pieces.get(piece);
+                int length = points.length / 2;
+                boolean forward = (end & 1) == 0;
+                for (int k = 0; k < length; k++) {
+                    int q = forward ? k : length - 1 - k;
+                    ring.add(point(points[q * 2], points[q * 2 + 1]));
+                }
+
+                int group = groupOf[end ^ 1];
+                if (group == startGroup)
+                    break;
+
+                // go on with a piece of the other kind, if there's one
+                boolean arc = arcs.get(piece);
+                int found = -1;
+                for (int i = groupStart[group]; i < groupStart[group + 1]; i++) {
+                    int candidate = order[i];
+                    if (used[candidate / 2])
+                        continue;
+                    if (found < 0 || arcs.get(candidate / 2) != arc)
+                        found = candidate;
+                    if (arcs.get(candidate / 2) != arc)
+                        break;
+                }
+                if (found < 0)
+                    break;
+                end = found;
+            }
+            this.emit(ring, regions);
+        }
+    }
+
+    private List<double[]> points(double[] packed, int from, int to) {
+        List<double[]> points = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++)
+            points.add(point(packed[i * 2], packed[i * 2 + 1]));
+        return points;
+    }
+
+    private void emit(List<double[]> region, List<List<double[]>> regions) {
+        // without repeated points, points in the middle of a straight line, or spikes
+        List<double[]> ring = ConvexClipper.clean(this.eps, region);
+        if (ring.size() >= 3)
+            regions.add(ring);
+    }
+}
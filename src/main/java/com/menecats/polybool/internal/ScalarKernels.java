@@ -0,0 +1,45 @@
+package com.menecats.polybool.internal;
+
+final class ScalarKernels {
+    // the plain loops behind BatchKernels, and what the vectorized ones must match bit for bit
+    private ScalarKernels() {
+    }
+
+    static void range(double[] a, double[] b, int count, double[] out, int offset) {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            min = Math.min(min, Math.min(a[i], b[i]));
+            max = Math.max(max, Math.max(a[i], b[i]));
+        }
+        out[offset] = min;
+        out[offset + 2] = max;
+    }
+
+    static void pointsAboveOrOnLine(double[] px, double[] py, double[] ax, double[] ay, double[] bx, double[] by,
+                                    int count, double eps, boolean[] out) {
+        for (int i = 0; i < count; i++)
+            out[i] = (bx[i] - ax[i]) * (py[i] - ay[i]) - (by[i] - ay[i]) * (px[i] - ax[i]) >= -eps;
+    }
+
+    static void flipInsideRegion(double[] region, int points, double[] xs, double[] ys, int from, int to, double eps,
+                                 boolean[] inside) {
+        for (int i = from; i < to; i++) {
+            double x = xs[i];
+            double y = ys[i];
+            double last_x = region[points * 2 - 2];
+            double last_y = region[points * 2 - 1];
+            boolean flip = false;
+            for (int p = 0; p < points; p++) {
+                double curr_x = region[p * 2];
+                double curr_y = region[p * 2 + 1];
+                if ((curr_y - y > eps) != (last_y - y > eps) && (last_x - curr_x) * (y - curr_y) / (last_y - curr_y) + curr_x - x > eps)
+                    flip = !flip;
+                last_x = curr_x;
+                last_y = curr_y;
+            }
+            if (flip)
+                inside[i] = !inside[i];
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.menecats.polybool.internal;
+
+import com.menecats.polybool.models.Segment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public final class SegmentBuffer {
+    // fill flags, packed in one byte per segment
+    // the lower nibble is laid out exactly like the index used by SegmentSelector, so selecting a
+    // segment is a single table lookup
+    public static final int MY_ABOVE = 8;
+    public static final int MY_BELOW = 4;
+    public static final int OTHER_ABOVE = 2;
+    public static final int OTHER_BELOW = 1;
+    public static final int MY_KNOWN = 16; // myFill has been calculated (Segment.myFill.below != null)
+    public static final int OTHER_KNOWN = 32; // otherFill has been calculated (Segment.otherFill != null)
+
+    public static final int MY = MY_ABOVE | MY_BELOW | MY_KNOWN;
+    public static final int OTHER = OTHER_ABOVE | OTHER_BELOW | OTHER_KNOWN;
+
+    private double[] x1;
+    private double[] y1;
+    private double[] x2;
+    private double[] y2;
+    private byte[] fill;
+    private int size;
+    private int[] index; // for views, the position of each segment in the coordinate arrays
+
+    public SegmentBuffer() {
+        this(16);
+    }
+
+    public SegmentBuffer(int capacity) {
+        capacity = Math.max(capacity, 1);
+        this.x1 = new double[capacity];
+        this.y1 = new double[capacity];
+        this.x2 = new double[capacity];
+        this.y2 = new double[capacity];
+        this.fill = new byte[capacity];
+    }
+
+    public static SegmentBuffer of(List<Segment> segments) {
+        SegmentBuffer buffer = new SegmentBuffer(segments.size());
+        for (Segment seg : segments) {
+            int fill = 0;
+            if (seg.myFill != null && seg.myFill.below != null) {
+                fill |= MY_KNOWN;
+                if (seg.myFill.above != null && seg.myFill.above)
+                    fill |= MY_ABOVE;
+                if (seg.myFill.below)
+                    fill |= MY_BELOW;
+            }
+            if (seg.otherFill != null) {
+                fill |= OTHER_KNOWN;
+                if (seg.otherFill.above != null && seg.otherFill.above)
+                    fill |= OTHER_ABOVE;
+                if (seg.otherFill.below != null && seg.otherFill.below)
+                    fill |= OTHER_BELOW;
+            }
+            buffer.add(seg.start[0], seg.start[1], seg.end[0], seg.end[1], fill);
+        }
+        return buffer;
+    }
+
+    public SegmentBuffer view(int[] index, byte[] fill, int size) {
+        // a read-only selection of these segments, with its own fill flags
+        // the coordinates aren't copied, the view shares the arrays of this buffer
+        SegmentBuffer view = new SegmentBuffer(this.x1, this.y1, this.x2, this.y2, fill, size);
+        if (this.index == null) {
+            view.index = index;
+        } else {
+            view.index = new int[size];
+            for (int i = 0; i < size; i++)
+                view.index[i] = this.index[index[i]];
+        }
+        return view;
+    }
+
+    private SegmentBuffer(double[] x1, double[] y1, double[] x2, double[] y2, byte[] fill, int size) {
+        this.x1 = x1;
+        this.y1 = y1;
+        this.x2 = x2;
+        this.y2 = y2;
+        this.fill = fill;
+        this.size = size;
+    }
+
+    private int at(int index) {
+        return this.index == null ? index : this.index[index];
+    }
+
+    public int add(double x1, double y1, double x2, double y2, int fill) {
+        if (this.index != null)
+            throw new IllegalStateException("PolyBool: Cannot add segments to a view");
+        if (this.size == this.fill.length) {
+            int capacity = this.size + (this.size >> 1) + 1;
+            this.x1 = Arrays.copyOf(this.x1, capacity);
+            this.y1 = Arrays.copyOf(this.y1, capacity);
+            this.x2 = Arrays.copyOf(this.x2, capacity);
+            this.y2 = Arrays.copyOf(this.y2, capacity);
+            this.fill = Arrays.copyOf(this.fill, capacity);
+        }
+        int index = this.size++;
+        this.x1[index] = x1;
+        this.y1[index] = y1;
+        this.x2[index] = x2;
+        this.y2[index] = y2;
+        this.fill[index] = (byte) fill;
+        return index;
+    }
+
+    public int add(SegmentBuffer other, int index, int fill) {
+        return this.add(other.x1(index), other.y1(index), other.x2(index), other.y2(index), fill);
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public double x1(int index) {
+        return this.x1[this.at(index)];
+    }
+
+    public double y1(int index) {
+        return this.y1[this.at(index)];
+    }
+
+    public double x2(int index) {
+        return this.x2[this.at(index)];
+    }
+
+    public double y2(int index) {
+        return this.y2[this.at(index)];
+    }
+
+    public void setEnd(int index, double x2, double y2) {
+        if (this.index != null)
+            throw new IllegalStateException("PolyBool: Cannot move segments of a view");
+        this.x2[index] = x2;
+        this.y2[index] = y2;
+    }
+
+    public void bounds(double[] out) {
+        // minX, minY, maxX, maxY of all the segments
+        if (this.index == null) {
+            BatchKernels.range(this.x1, this.x2, this.size, out, 0);
+            BatchKernels.range(this.y1, this.y2, this.size, out, 1);
+            return;
+        }
+        out[0] = out[1] = Double.POSITIVE_INFINITY;
+        out[2] = out[3] = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < this.size; i++) {
+            out[0] = Math.min(out[0], Math.min(this.x1(i), this.x2(i)));
+            out[1] = Math.min(out[1], Math.min(this.y1(i), this.y2(i)));
+            out[2] = Math.max(out[2], Math.max(this.x1(i), this.x2(i)));
+            out[3] = Math.max(out[3], Math.max(this.y1(i), this.y2(i)));
+        }
+    }
+
+    public int fill(int index) {
+        return this.fill[index];
+    }
+
+    public void setFill(int index, int fill) {
+        this.fill[index] = (byte) fill;
+    }
+
+    public boolean is(int index, int flag) {
+        return (this.fill[index] & flag) != 0;
+    }
+
+    public static int swap(int fill) {
+        // exchanges the fill of the two polygons
+        return ((fill & (MY_ABOVE | MY_BELOW)) >> 2) |
+                ((fill & (OTHER_ABOVE | OTHER_BELOW)) << 2) |
+                ((fill & MY_KNOWN) << 1) |
+                ((fill & OTHER_KNOWN) >> 1);
+    }
+
+    // compatibility view
+    public Segment get(int index) {
+        int fill = this.fill[index];
+        Segment seg = new Segment(
+                new double[]{this.x1(index), this.y1(index)},
+                new double[]{this.x2(index), this.y2(index)},
+                (fill & MY_KNOWN) != 0
+                        ? new Segment.SegmentFill((fill & MY_ABOVE) != 0, (fill & MY_BELOW) != 0)
+                        : new Segment.SegmentFill()
+        );
+        if ((fill & OTHER_KNOWN) != 0)
+            seg.otherFill = new Segment.SegmentFill((fill & OTHER_ABOVE) != 0, (fill & OTHER_BELOW) != 0);
+        return seg;
+    }
+
+    public List<Segment> toSegments() {
+        List<Segment> segments = new ArrayList<>(this.size);
+        for (int i = 0; i < this.size; i++)
+            segments.add(this.get(i));
+        return segments;
+    }
+}
@@ -1,14 +1,16 @@
 package com.menecats.polybool.internal;
 
 import com.menecats.polybool.Epsilon;
+import com.menecats.polybool.PolygonSink;
 import com.menecats.polybool.models.Segment;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
+import static com.menecats.polybool.helpers.PolyBoolHelper.point;
+
 public final class SegmentChainer {
     private static class SegmentChainerMatch {
         int index;
@@ -30,16 +32,149 @@ public final class SegmentChainer {
         boolean apply(T t, U u, V v);
     }
 
+    // an open chain of points, packed in a primitive array that can grow on both ends
+    private static final class PointChain {
+        private double[] coords;
+        private int head; // index of the first x
+        private int tail; // index after the last y
+
+        PointChain(double x1, double y1, double x2, double y2) {
+            this.coords = new double[16];
+            this.head = 8;
+            this.tail = 8;
+            this.addTail(x1, y1);
+            this.addTail(x2, y2);
+        }
+
+        int size() {
+            return (this.tail - this.head) >> 1;
+        }
+
+        double[] first(int k, double[] out) {
+            // k-th point from the head
+            out[0] = this.coords[this.head + 2 * k];
+            out[1] = this.coords[this.head + 2 * k + 1];
+            return out;
+        }
+
+        double[] last(int k, double[] out) {
+            // k-th point from the tail
+            out[0] = this.coords[this.tail - 2 * k - 2];
+            out[1] = this.coords[this.tail - 2 * k - 1];
+            return out;
+        }
+
+        void addHead(double x, double y) {
+            if (this.head == 0)
+                this.grow();
+            this.coords[--this.head] = y;
+            this.coords[--this.head] = x;
+        }
+
+        void addTail(double x, double y) {
+            if (this.tail == this.coords.length)
+                this.grow();
+            this.coords[this.tail++] = x;
+            this.coords[this.tail++] = y;
+        }
+
+        void removeHead() {
+            this.head += 2;
+        }
+
+        void removeTail() {
+            this.tail -= 2;
+        }
+
+        void reverse() {
+            for (int i = this.head, j = this.tail - 2; i < j; i += 2, j -= 2) {
+                double x = this.coords[i];
+                double y = this.coords[i + 1];
+                this.coords[i] = this.coords[j];
+                this.coords[i + 1] = this.coords[j + 1];
+                this.coords[j] = x;
+                this.coords[j + 1] = y;
+            }
+        }
+
+        void append(PointChain other) {
+            for (int i = other.head; i < other.tail; i += 2)
+                this.addTail(other.coords[i], other.coords[i + 1]);
+        }
+
+        private void grow() {
+            // re-center the points, leaving the same amount of room on both ends
+            int used = this.tail - this.head;
+            int room = Math.max(used, 8) & ~1;
+            double[] grown = new double[used + 2 * room];
+            System.arraycopy(this.coords, this.head, grown, room, used);
+            this.coords = grown;
+            this.head = room;
+            this.tail = room + used;
+        }
+
+        void emit(PolygonSink sink) {
+            sink.beginRing();
+            for (int i = this.head; i < this.tail; i += 2)
+                sink.vertex(this.coords[i], this.coords[i + 1]);
+            sink.endRing();
+        }
+    }
+
+    // collects the regions reported by the chainer
+    private static final class RegionsSink implements PolygonSink {
+        private final List<List<double[]>> regions = new ArrayList<>();
+        private List<double[]> region;
+
+        @Override
+        public void beginRing() {
+            this.region = new ArrayList<>();
+        }
+
+        @Override
+        public void vertex(double x, double y) {
+            this.region.add(point(x, y));
+        }
+
+        @Override
+        public void endRing() {
+            this.regions.add(this.region);
+            this.region = null;
+        }
+    }
+
     public static List<List<double[]>> chain(List<Segment> segments, Epsilon eps) {
-        List<List<double[]>> chains = new ArrayList<>();
-        List<List<double[]>> regions = new ArrayList<>();
+        return chain(SegmentBuffer.of(segments), eps);
+    }
+
+    public static List<List<double[]>> chain(SegmentBuffer segments, Epsilon eps) {
+        RegionsSink sink = new RegionsSink();
+        return chain(segments, eps, sink) ? sink.regions : null;
+    }
 
-        for (Segment seg : segments) {
-            double[] pt1 = seg.start;
-            double[] pt2 = seg.end;
+    public static boolean chain(SegmentBuffer segments, Epsilon eps, PolygonSink sink) {
+        // reports every region to `sink` as soon as it is closed
+        // returns false if the segments couldn't be chained, in which case `sink` has already
+        // received the regions closed before the failure, and should drop them
+        List<PointChain> chains = new ArrayList<>();
+
+        final double[] pt1 = new double[2];
+        final double[] pt2 = new double[2];
+        final double[] head = new double[2];
+        final double[] tail = new double[2];
+        final double[] grow = new double[2];
+        final double[] grow2 = new double[2];
+        final double[] oppo = new double[2];
+        final double[] oppo2 = new double[2];
+
+        for (int s = 0; s < segments.size(); s++) {
+            pt1[0] = segments.x1(s);
+            pt1[1] = segments.y1(s);
+            pt2[0] = segments.x2(s);
+            pt2[1] = segments.y2(s);
             if (eps.pointsSame(pt1, pt2)) {
                 System.err.println("PolyBool: Warning: Zero-length segment detected; your epsilon is probably too small or too large");
-                return null;
+                return false;
             }
 
             // search for two chains that this segment matches
@@ -63,9 +198,9 @@ public final class SegmentChainer {
             };
 
             for (int i = 0; i < chains.size(); i++) {
-                List<double[]> chain = chains.get(i);
-                double[] head = chain.get(0);
-                double[] tail = chain.get(chain.size() - 1);
+                PointChain chain = chains.get(i);
+                chain.first(0, head);
+                chain.last(0, tail);
 
                 if (eps.pointsSame(head, pt1)) {
                     if (setMatch.apply(i, true, true))
@@ -83,12 +218,8 @@ public final class SegmentChainer {
             }
 
             if (next_match[0] == first_match) {
-                List<double[]> newChain = new ArrayList<>();
-                newChain.add(pt1);
-                newChain.add(pt2);
-
                 // we didn't match anything, so create a new chain
-                chains.add(newChain);
+                chains.add(new PointChain(pt1[0], pt1[1], pt2[0], pt2[1]));
                 continue;
             }
 
@@ -102,21 +233,30 @@ public final class SegmentChainer {
                 double[] pt = first_match.matches_pt1 ? pt2 : pt1; // if we matched pt1, then we add pt2, etc
                 boolean addToHead = first_match.matches_head; // if we matched at head, then add to the head
 
-                List<double[]> chain = chains.get(index);
-                double[] grow = addToHead ? chain.get(0) : chain.get(chain.size() - 1);
-                double[] grow2 = addToHead ? chain.get(1) : chain.get(chain.size() - 2);
-                double[] oppo = addToHead ? chain.get(chain.size() - 1) : chain.get(0);
-                double[] oppo2 = addToHead ? chain.get(chain.size() - 2) : chain.get(1);
+                PointChain chain = chains.get(index);
+                if (addToHead) {
+                    chain.first(0, grow);
+                    chain.first(1, grow2);
+                    chain.last(0, oppo);
+                    chain.last(1, oppo2);
+                } else {
+                    chain.last(0, grow);
+                    chain.last(1, grow2);
+                    chain.first(0, oppo);
+                    chain.first(1, oppo2);
+                }
 
                 if (eps.pointsCollinear(grow2, grow, pt)) {
                     // grow isn't needed because it's directly between grow2 and pt:
                     // grow2 ---grow---> pt
                     if (addToHead) {
-                        chain.remove(0);
+                        chain.removeHead();
                     } else {
-                        chain.remove(chain.size() - 1);
+                        chain.removeTail();
                     }
-                    grow = grow2; // old grow is gone... new grow is what grow2 was
+                    // old grow is gone... new grow is what grow2 was
+                    grow[0] = grow2[0];
+                    grow[1] = grow2[1];
                 }
 
                 if (eps.pointsSame(oppo, pt)) {
@@ -127,55 +267,54 @@ public final class SegmentChainer {
                         // oppo isn't needed because it's directly between oppo2 and grow:
                         // oppo2 ---oppo--->grow
                         if (addToHead) {
-                            chain.remove(chain.size() - 1);
+                            chain.removeTail();
                         } else {
-                            chain.remove(0);
+                            chain.removeHead();
                         }
                     }
 
                     // we have a closed chain!
-                    regions.add(chain);
+                    chain.emit(sink);
                     continue;
                 }
 
                 // not closing a loop, so just add it to the apporpriate side
                 if (addToHead) {
-                    chain.add(0, pt);
+                    chain.addHead(pt[0], pt[1]);
                 } else {
-                    chain.add(pt);
+                    chain.addTail(pt[0], pt[1]);
                 }
                 continue;
             }
 
             // otherwise, we matched two chains, so we need to combine those chains together
 
-            Consumer<Integer> reverseChain = index -> Collections.reverse(chains.get(index));
+            Consumer<Integer> reverseChain = index -> chains.get(index).reverse();
             BiConsumer<Integer, Integer> appendChain = (index1, index2) -> {
                 // index1 gets index2 appended to it, and index2 is removed
-                List<double[]> chain1 = chains.get(index1);
-                List<double[]> chain2 = chains.get(index2);
-                double[] tail = chain1.get(chain1.size() - 1);
-                double[] tail2 = chain1.get(chain1.size() - 2);
-                double[] head = chain2.get(0);
-                double[] head2 = chain2.get(1);
-
-                if (eps.pointsCollinear(tail2, tail, head)) {
+                PointChain chain1 = chains.get(index1);
+                PointChain chain2 = chains.get(index2);
+                chain1.last(0, tail);
+                chain1.last(1, grow2); // tail2
+                chain2.first(0, head);
+                chain2.first(1, oppo2); // head2
+
+                if (eps.pointsCollinear(grow2, tail, head)) {
                     // tail isn't needed because it's directly between tail2 and head
                     // tail2 ---tail---> head
-                    chain1.remove(chain1.size() - 1);
-                    tail = tail2; // old tail is gone... new tail is what tail2 was
+                    chain1.removeTail();
+                    // old tail is gone... new tail is what tail2 was
+                    tail[0] = grow2[0];
+                    tail[1] = grow2[1];
                 }
 
-                if (eps.pointsCollinear(tail, head, head2)) {
+                if (eps.pointsCollinear(tail, head, oppo2)) {
                     // head isn't needed because it's directly between tail and head2
                     // tail ---head---> head2
-                    chain2.remove(0);
+                    chain2.removeHead();
                 }
 
-                List<double[]> concatenated = new ArrayList<>();
-                concatenated.addAll(chain1);
-                concatenated.addAll(chain2);
-                chains.set(index1, concatenated);
+                chain1.append(chain2);
                 chains.remove((int) index2);
             };
 
@@ -223,6 +362,6 @@ public final class SegmentChainer {
             }
         }
 
-        return regions;
+        return true;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,26 @@
+package com.menecats.polybool.internal;
+
+import static com.menecats.polybool.internal.SegmentBuffer.*;
+
+public final class SegmentMeasure {
+    public static double area(SegmentBuffer segments) {
+        // every vertical line crosses the filled area in intervals, each going from a segment
+        // filled above to a segment filled below
+        // so the area is the area under the segments filled below, minus the area under the
+        // segments filled above
+        double area = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            boolean above = segments.is(i, MY_ABOVE);
+            boolean below = segments.is(i, MY_BELOW);
+            if (above == below)
+                continue; // not a boundary
+
+            double trapezoid = (segments.x2(i) - segments.x1(i)) * (segments.y1(i) + segments.y2(i)) * 0.5;
+            area += below ? trapezoid : -trapezoid;
+        }
+        return Math.abs(area);
+    }
+
+    private SegmentMeasure() {
+    }
+}
@@ -0,0 +1,89 @@
+package com.menecats.polybool.internal;
+
+import com.menecats.polybool.Epsilon;
+import com.menecats.polybool.models.Overlay;
+import com.menecats.polybool.models.OverlayEdge;
+import com.menecats.polybool.models.OverlayFace;
+import com.menecats.polybool.models.Polygon;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.menecats.polybool.internal.SegmentBuffer.*;
+
+public final class SegmentOverlay {
+    // the segments bounding the faces with the same label
+    private static final class Face {
+        int[] index = new int[16];
+        byte[] fill = new byte[16];
+        int size;
+
+        void add(int seg, int fill) {
+            if (this.size == this.index.length) {
+                this.index = Arrays.copyOf(this.index, this.size * 2);
+                this.fill = Arrays.copyOf(this.fill, this.size * 2);
+            }
+            this.index[this.size] = seg;
+            this.fill[this.size] = (byte) fill;
+            this.size++;
+        }
+    }
+
+    public static Overlay overlay(MultiSegments multi, Epsilon eps, boolean byCount) {
+        // every segment separates the faces labelled like its two sides, so a single pass hands it
+        // to both of them, instead of selecting the segments once for each label
+        // faces are labelled with the set of inputs covering them, or with just their number if
+        // `byCount` is set, and the area covered by no input isn't reported
+        SegmentBuffer segments = multi.segments();
+        Map<Long, Face> faces = new TreeMap<>();
+        List<OverlayEdge> edges = new ArrayList<>();
+
+        for (int i = 0; i < segments.size(); i++) {
+            long above = multi.above(i);
+            long below = multi.below(i);
+            long labelAbove = byCount ? Long.bitCount(above) : above;
+            long labelBelow = byCount ? Long.bitCount(below) : below;
+            if (labelAbove == labelBelow)
+                continue; // inside a single face
+
+            if (labelAbove != 0)
+                faces.computeIfAbsent(labelAbove, label -> new Face()).add(i, MY_KNOWN | MY_ABOVE);
+            if (labelBelow != 0)
+                faces.computeIfAbsent(labelBelow, label -> new Face()).add(i, MY_KNOWN | MY_BELOW);
+
+            // the boundary between the two faces is reported once, not once for each face
+            edges.add(new OverlayEdge(
+                    new double[]{segments.x1(i), segments.y1(i)},
+                    new double[]{segments.x2(i), segments.y2(i)},
+                    above,
+                    below
+            ));
+        }
+
+        long outside = byCount ? Long.bitCount(multi.inverted()) : multi.inverted();
+        if (outside != 0 && !faces.containsKey(outside))
+            faces.put(outside, new Face()); // everything is covered by the same inverted inputs
+
+        List<OverlayFace> result = new ArrayList<>(faces.size());
+        for (Map.Entry<Long, Face> entry : faces.entrySet()) {
+            long label = entry.getKey();
+            Face face = entry.getValue();
+
+            SegmentBuffer view = segments.view(face.index, face.fill, face.size);
+            Polygon polygon = new Polygon(SegmentChainer.chain(view, eps), label == outside, true);
+            result.add(new OverlayFace(
+                    byCount ? 0 : label,
+                    byCount ? (int) label : Long.bitCount(label),
+                    polygon
+            ));
+        }
+
+        return new Overlay(result, edges);
+    }
+
+    private SegmentOverlay() {
+    }
+}
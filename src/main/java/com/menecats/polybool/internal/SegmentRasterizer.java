@@ -0,0 +1,251 @@
+package com.menecats.polybool.internal;
+
+import java.util.stream.IntStream;
+
+import static com.menecats.polybool.internal.SegmentBuffer.*;
+
+public final class SegmentRasterizer {
+    // moving right across a boundary, the fill changes by one, in a direction given by its fill
+    // flags and by whether it goes up or down
+    // every boundary adds that change to the cells right after it, in an accumulation buffer, and
+    // the coverage of a row is then the running sum of the buffer from left to right, so the cost
+    // is linear in the rows crossed by the boundaries plus the cells of the grid
+    //
+    // with anti-aliasing the change is spread over the cells the boundary passes through, in
+    // proportion to the area on their right, which gives the exact area covered in every cell
+    // without, the change goes in the first cell with its center past the boundary
+    private static final int BAND = 32; // rows processed together, bands run in parallel
+
+    public interface Writer {
+        void write(int row, float[] coverage); // `coverage` has one value for each column
+    }
+
+    private final int width;
+    private final int height;
+    private final float base; // the fill far on the left, 1 for inverted polygons
+
+    // the boundaries in grid coordinates, and their change in fill moving right while going up
+    private double[] x1;
+    private double[] y1;
+    private double[] x2;
+    private double[] y2;
+    private float[] change;
+    private int count;
+
+    private SegmentRasterizer(int width, int height, float base, int capacity) {
+        this.width = width;
+        this.height = height;
+        this.base = base;
+        this.x1 = new double[capacity];
+        this.y1 = new double[capacity];
+        this.x2 = new double[capacity];
+        this.y2 = new double[capacity];
+        this.change = new float[capacity];
+    }
+
+    public static void rasterize(SegmentBuffer segments, boolean inverted,
+                                 double minX, double minY, double maxX, double maxY,
+                                 int width, int height, boolean antiAliased, Writer writer) {
+        SegmentRasterizer rasterizer = new SegmentRasterizer(width, height, inverted ? 1 : 0, segments.size() * 3);
+        double scaleX = width / (maxX - minX);
+        double scaleY = height / (maxY - minY);
+        for (int i = 0; i < segments.size(); i++) {
+            boolean above = segments.is(i, MY_ABOVE);
+            boolean below = segments.is(i, MY_BELOW);
+            if (above == below || segments.y1(i) == segments.y2(i))
+                continue; // not a boundary, or it never changes the fill moving right
+
+            // above is on the left of the segment, so moving right across it goes from above to
+            // below when it goes up
+            rasterizer.add(
+                    (segments.x1(i) - minX) * scaleX, (segments.y1(i) - minY) * scaleY,
+                    (segments.x2(i) - minX) * scaleX, (segments.y2(i) - minY) * scaleY,
+                    below ? 1 : -1
+            );
+        }
+        rasterizer.rasterize(antiAliased, writer);
+    }
+
+    private void add(double ax, double ay, double bx, double by, float change) {
+        // the parts on the left and on the right of the grid are moved on its sides, where they
+        // still change the fill of the cells after them, and of no cell at all
+        if (ax > bx) {
+            double t = ax;
+            ax = bx;
+            bx = t;
+            t = ay;
+            ay = by;
+            by = t;
+            change = -change; // the same boundary, but going down
+        }
+        if (ax < 0 && bx > 0) {
+            double y = ay + (0 - ax) * (by - ay) / (bx - ax);
+            this.push(0, ay, 0, y, change);
+            ax = 0;
+            ay = y;
+        }
+        if (ax < this.width && bx > this.width) {
+            double y = ay + (this.width - ax) * (by - ay) / (bx - ax);
+            this.push(ax, ay, this.width, y, change);
+            this.push(this.width, y, this.width, by, change);
+            return;
+        }
+        this.push(Math.min(Math.max(ax, 0), this.width), ay, Math.min(Math.max(bx, 0), this.width), by, change);
+    }
+
+    private void push(double ax, double ay, double bx, double by, float change) {
+        if (ay == by)
+            return;
+        int i = this.count++;
+        this.x1[i] = ax;
+        this.y1[i] = ay;
+        this.x2[i] = bx;
+        this.y2[i] = by;
+        this.change[i] = change;
+    }
+
+    private void rasterize(boolean antiAliased, Writer writer) {
+        // the boundaries crossing every band
+        int bands = (this.height + BAND - 1) / BAND;
+        int[] offsets = new int[bands + 1];
+        for (int i = 0; i < this.count; i++) {
+            int first = this.firstBand(i);
+            int last = this.lastBand(i);
+            for (int band = first; band <= last; band++)
+                offsets[band + 1]++;
+        }
+        for (int band = 0; band < bands; band++)
+            offsets[band + 1] += offsets[band];
+        int[] edges = new int[offsets[bands]];
+        int[] next = new int[bands];
+        System.arraycopy(offsets, 0, next, 0, bands);
+        for (int i = 0; i < this.count; i++) {
+            int first = this.firstBand(i);
+            int last = this.lastBand(i);
+            for (int band = first; band <= last; band++)
+                edges[next[band]++] = i;
+        }
+
+        IntStream.range(0, bands).parallel().forEach(band -> {
+            int row0 = band * BAND;
+            int rows = Math.min(BAND, this.height - row0);
+            int stride = this.width + 2;
+            float[] accumulation = new float[rows * stride];
+            for (int k = offsets[band]; k < offsets[band + 1]; k++) {
+                if (antiAliased)
+                    this.addArea(edges[k], row0, rows, accumulation, stride);
+                else
+                    this.addCenters(edges[k], row0, rows, accumulation, stride);
+            }
+
+            float[] coverage = new float[this.width];
+            for (int r = 0; r < rows; r++) {
+                float sum = this.base;
+                for (int c = 0; c < this.width; c++) {
+                    sum += accumulation[r * stride + c];
+                    coverage[c] = Math.min(Math.max(sum, 0), 1);
+                }
+                writer.write(row0 + r, coverage);
+            }
+        });
+    }
+
+    private int firstBand(int edge) {
+        double y = Math.min(this.y1[edge], this.y2[edge]);
+        return (int) Math.max(0, Math.min(Math.floor(y), this.height - 1)) / BAND;
+    }
+
+    private int lastBand(int edge) {
+        double y = Math.max(this.y1[edge], this.y2[edge]);
+        return (int) Math.max(0, Math.min(Math.ceil(y) - 1, this.height - 1)) / BAND;
+    }
+
+    private void addCenters(int edge, int row0, int rows, float[] accumulation, int stride) {
+        // the rows with their center between the ends of the boundary
+        double ax = this.x1[edge];
+        double ay = this.y1[edge];
+        double bx = this.x2[edge];
+        double by = this.y2[edge];
+        float change = by > ay ? this.change[edge] : -this.change[edge];
+        double low = Math.min(ay, by);
+        double high = Math.max(ay, by);
+        int first = Math.max(row0, (int) Math.ceil(low - 0.5));
+        int last = Math.min(row0 + rows, (int) Math.ceil(high - 0.5));
+        double dxdy = (bx - ax) / (by - ay);
+        for (int r = first; r < last; r++) {
+            double x = ax + (r + 0.5 - ay) * dxdy;
+            int c = (int) Math.ceil(x - 0.5);
+            accumulation[(r - row0) * stride + Math.min(Math.max(c, 0), this.width)] += change;
+        }
+    }
+
+    private double clampX(double x) {
+        // within the grid, where rounding errors could move the points of the boundary
+        return Math.min(Math.max(x, 0), this.width);
+    }
+
+    private void addArea(int edge, int row0, int rows, float[] accumulation, int stride) {
+        // the part of the boundary in every row, spread over the cells it crosses
+        double ax = this.x1[edge];
+        double ay = this.y1[edge];
+        double bx = this.x2[edge];
+        double by = this.y2[edge];
+        float direction = this.change[edge];
+        if (ay > by) {
+            double t = ax;
+            ax = bx;
+            bx = t;
+            t = ay;
+            ay = by;
+            by = t;
+            direction = -direction;
+        }
+
+        double dxdy = (bx - ax) / (by - ay);
+        double top = Math.min(by, row0 + rows);
+        double y = Math.max(ay, row0);
+        double x = this.clampX(ax + (y - ay) * dxdy);
+        for (int r = (int) Math.floor(y); y < top; r++) {
+            double dy = Math.min(r + 1, top) - y;
+            double xNext = this.clampX(x + dxdy * dy);
+            double d = dy * direction;
+            int line = (r - row0) * stride;
+
+            double x0 = Math.min(x, xNext);
+            double x1 = Math.max(x, xNext);
+            double x0Floor = Math.floor(x0);
+            int x0i = (int) x0Floor;
+            double x1Ceil = Math.ceil(x1);
+            int x1i = (int) x1Ceil;
+            if (x1i <= x0i + 1) {
+                // within a single cell, split with the cell after it
+                double middle = 0.5 * (x + xNext) - x0Floor;
+                accumulation[line + x0i] += d - d * middle;
+                accumulation[line + x0i + 1] += d * middle;
+            } else {
+                // the area on the right grows with the square of the distance in the first cell,
+                // linearly in the cells in between, and with the square again in the last cell
+                double s = 1 / (x1 - x0);
+                double x0f = x0 - x0Floor;
+                double a0 = 0.5 * s * (1 - x0f) * (1 - x0f);
+                double x1f = x1 - x1Ceil + 1;
+                double am = 0.5 * s * x1f * x1f;
+                accumulation[line + x0i] += d * a0;
+                if (x1i == x0i + 2) {
+                    accumulation[line + x0i + 1] += d * (1 - a0 - am);
+                } else {
+                    double a1 = s * (1.5 - x0f);
+                    accumulation[line + x0i + 1] += d * (a1 - a0);
+                    for (int xi = x0i + 2; xi < x1i - 1; xi++)
+                        accumulation[line + xi] += d * s;
+                    double a2 = a1 + (x1i - x0i - 3) * s;
+                    accumulation[line + x1i - 1] += d * (1 - a2 - am);
+                }
+                accumulation[line + x1i] += d * am;
+            }
+
+            x = xNext;
+            y += dy;
+        }
+    }
+}
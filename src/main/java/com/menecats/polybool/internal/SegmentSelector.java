@@ -1,38 +1,9 @@
 package com.menecats.polybool.internal;
 
-import com.menecats.polybool.models.Segment;
-
-import java.util.ArrayList;
-import java.util.List;
+import static com.menecats.polybool.internal.SegmentBuffer.*;
 
 public class SegmentSelector {
-    private static List<Segment> select(List<Segment> segments, int[] selection) {
-        List<Segment> result = new ArrayList<>();
-
-        for (Segment seg : segments) {
-            int index =
-                    (seg.myFill.above ? 8 : 0) +
-                            (seg.myFill.below ? 4 : 0) +
-                            ((seg.otherFill != null && seg.otherFill.above) ? 2 : 0) +
-                            ((seg.otherFill != null && seg.otherFill.below) ? 1 : 0);
-
-            if (selection[index] != 0) {
-                // copy the segment to the results, while also calculating the fill status
-                result.add(new Segment(
-                        seg.start,
-                        seg.end,
-                        new Segment.SegmentFill(
-                                selection[index] == 1,
-                                selection[index] == 2
-                        )
-                ));
-            }
-        }
-
-        return result;
-    }
-
-    public static List<Segment> union(List<Segment> segments) {
+    private static final int[] UNION_TABLE = {
         // above1 below1 above2 below2    Keep?               Value
         //    0      0      0      0   =>   no                  0
         //    0      0      0      1   =>   yes filled below    2
@@ -50,15 +21,13 @@ public class SegmentSelector {
         //    1      1      0      1   =>   no                  0
         //    1      1      1      0   =>   no                  0
         //    1      1      1      1   =>   no                  0
-        return select(segments, new int[]{
-                0, 2, 1, 0,
-                2, 2, 0, 0,
-                1, 0, 1, 0,
-                0, 0, 0, 0
-        });
-    }
+            0, 2, 1, 0,
+            2, 2, 0, 0,
+            1, 0, 1, 0,
+            0, 0, 0, 0
+    };
 
-    public static List<Segment> intersect(List<Segment> segments) {
+    private static final int[] INTERSECT_TABLE = {
         // above1 below1 above2 below2    Keep?               Value
         //    0      0      0      0   =>   no                  0
         //    0      0      0      1   =>   no                  0
@@ -76,15 +45,13 @@ public class SegmentSelector {
         //    1      1      0      1   =>   yes filled below    2
         //    1      1      1      0   =>   yes filled above    1
         //    1      1      1      1   =>   no                  0
-        return select(segments, new int[]{
-                0, 0, 0, 0,
-                0, 2, 0, 2,
-                0, 0, 1, 1,
-                0, 2, 1, 0
-        });
-    }
+            0, 0, 0, 0,
+            0, 2, 0, 2,
+            0, 0, 1, 1,
+            0, 2, 1, 0
+    };
 
-    public static List<Segment> difference(List<Segment> segments) { // primary - secondary
+    private static final int[] DIFFERENCE_TABLE = { // primary - secondary
         // above1 below1 above2 below2    Keep?               Value
         //    0      0      0      0   =>   no                  0
         //    0      0      0      1   =>   no                  0
@@ -102,16 +69,13 @@ public class SegmentSelector {
         //    1      1      0      1   =>   yes filled above    1
         //    1      1      1      0   =>   yes filled below    2
         //    1      1      1      1   =>   no                  0
-        return select(segments, new int[]{
-                0, 0, 0, 0,
-                2, 0, 2, 0,
-                1, 1, 0, 0,
-                0, 1, 2, 0
-        });
-    }
-
+            0, 0, 0, 0,
+            2, 0, 2, 0,
+            1, 1, 0, 0,
+            0, 1, 2, 0
+    };
 
-    public static List<Segment> differenceRev(List<Segment> segments) { // secondary - primary
+    private static final int[] DIFFERENCE_REV_TABLE = { // secondary - primary
         // above1 below1 above2 below2    Keep?               Value
         //    0      0      0      0   =>   no                  0
         //    0      0      0      1   =>   yes filled below    2
@@ -129,15 +93,13 @@ public class SegmentSelector {
         //    1      1      0      1   =>   no                  0
         //    1      1      1      0   =>   no                  0
         //    1      1      1      1   =>   no                  0
-        return select(segments, new int[]{
-                0, 2, 1, 0,
-                0, 0, 1, 1,
-                0, 2, 0, 2,
-                0, 0, 0, 0
-        });
-    }
+            0, 2, 1, 0,
+            0, 0, 1, 1,
+            0, 2, 0, 2,
+            0, 0, 0, 0
+    };
 
-    public static List<Segment> xor(List<Segment> segments) { // primary ^ secondary
+    private static final int[] XOR_TABLE = { // primary ^ secondary
         // above1 below1 above2 below2    Keep?               Value
         //    0      0      0      0   =>   no                  0
         //    0      0      0      1   =>   yes filled below    2
@@ -155,12 +117,84 @@ public class SegmentSelector {
         //    1      1      0      1   =>   yes filled above    1
         //    1      1      1      0   =>   yes filled below    2
         //    1      1      1      1   =>   no                  0
-        return select(segments, new int[]{
-                0, 2, 1, 0,
-                2, 0, 0, 1,
-                1, 0, 0, 2,
-                0, 1, 2, 0
-        });
+            0, 2, 1, 0,
+            2, 0, 0, 1,
+            1, 0, 0, 2,
+            0, 1, 2, 0
+    };
+
+    // operations for `selectAll`
+    public static final int UNION = 0;
+    public static final int INTERSECT = 1;
+    public static final int DIFFERENCE = 2;
+    public static final int DIFFERENCE_REV = 3;
+    public static final int XOR = 4;
+
+    private static final int[][] TABLES = {
+            UNION_TABLE,
+            INTERSECT_TABLE,
+            DIFFERENCE_TABLE,
+            DIFFERENCE_REV_TABLE,
+            XOR_TABLE
+    };
+
+    private static SegmentBuffer select(SegmentBuffer segments, int[] selection) {
+        return select(segments, new int[][]{selection})[0];
+    }
+
+    private static SegmentBuffer[] select(SegmentBuffer segments, int[][] selections) {
+        int count = selections.length;
+        int[][] indexes = new int[count][segments.size()];
+        byte[][] fills = new byte[count][segments.size()];
+        int[] sizes = new int[count];
+
+        for (int i = 0; i < segments.size(); i++) {
+            // the lower nibble of the fill flags is the index in the selection tables
+            int index = segments.fill(i) & (MY_ABOVE | MY_BELOW | OTHER_ABOVE | OTHER_BELOW);
+
+            for (int s = 0; s < count; s++) {
+                int value = selections[s][index];
+                if (value != 0) {
+                    // keep the segment in the results, while also calculating the fill status
+                    // the coordinates are shared with the combined segments, so nothing is copied
+                    indexes[s][sizes[s]] = i;
+                    fills[s][sizes[s]] = (byte) (MY_KNOWN | (value == 1 ? MY_ABOVE : MY_BELOW));
+                    sizes[s]++;
+                }
+            }
+        }
+
+        SegmentBuffer[] results = new SegmentBuffer[count];
+        for (int s = 0; s < count; s++)
+            results[s] = segments.view(indexes[s], fills[s], sizes[s]);
+        return results;
+    }
+
+    public static SegmentBuffer[] selectAll(SegmentBuffer segments, int... operations) {
+        // classifies every segment once, and returns the results of all the operations
+        int[][] selections = new int[operations.length][];
+        for (int i = 0; i < operations.length; i++)
+            selections[i] = TABLES[operations[i]];
+        return select(segments, selections);
+    }
+
+    public static SegmentBuffer union(SegmentBuffer segments) {
+        return select(segments, UNION_TABLE);
+    }
+
+    public static SegmentBuffer intersect(SegmentBuffer segments) {
+        return select(segments, INTERSECT_TABLE);
+    }
+
+    public static SegmentBuffer difference(SegmentBuffer segments) { // primary - secondary
+        return select(segments, DIFFERENCE_TABLE);
+    }
+
+    public static SegmentBuffer differenceRev(SegmentBuffer segments) { // secondary - primary
+        return select(segments, DIFFERENCE_REV_TABLE);
     }
 
+    public static SegmentBuffer xor(SegmentBuffer segments) { // primary ^ secondary
+        return select(segments, XOR_TABLE);
+    }
 }
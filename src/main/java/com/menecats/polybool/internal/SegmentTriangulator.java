@@ -0,0 +1,374 @@
+package com.menecats.polybool.internal;
+
+import com.menecats.polybool.Epsilon;
+import com.menecats.polybool.models.Triangulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.menecats.polybool.internal.SegmentBuffer.*;
+
+public final class SegmentTriangulator {
+    // triangulates the filled area straight from the segments, in a single sweep over the vertices
+    // from left to right
+    //
+    // between two consecutive active segments there is a gap, and every filled gap is an x-monotone
+    // piece of the area that is triangulated as the sweep goes, keeping the points that can't be
+    // cut off yet in a stack (a reflex chain on one side of the gap)
+    // where a gap splits in two, the stack goes on in one of them and the other one starts from the
+    // top of the stack; where two gaps merge, both stacks are kept until the next point of the
+    // merged gap, which closes one of them
+    private static final int NONE = 0;
+    private static final int LOWER = 1; // the point is on the lower side of its gap
+    private static final int UPPER = 2; // the point is on the upper side of its gap
+
+    private static final class Chain {
+        int[] points = new int[8];
+        int size;
+        int side = NONE; // the side of all the points in the stack but the first
+
+        Chain(int point) {
+            this.points[this.size++] = point;
+        }
+
+        Chain(int point1, int point2, int side) {
+            this.points[this.size++] = point1;
+            this.points[this.size++] = point2;
+            this.side = side;
+        }
+
+        void push(int point) {
+            if (this.size == this.points.length)
+                this.points = Arrays.copyOf(this.points, this.size * 2);
+            this.points[this.size++] = point;
+        }
+
+        int top() {
+            return this.points[this.size - 1];
+        }
+    }
+
+    private static final class Gap {
+        Chain lower;
+        Chain upper; // only while waiting for the point after a merge, the chain of the upper gap
+
+        Gap(Chain lower) {
+            this.lower = lower;
+        }
+    }
+
+    private static final class Active {
+        final int segment;
+        Gap gap; // the gap above the segment, null when it isn't filled
+
+        Active(int segment, Gap gap) {
+            this.segment = segment;
+            this.gap = gap;
+        }
+    }
+
+    private final double[] x;
+    private final double[] y;
+    private final int[] start;
+    private final int[] end;
+    private final boolean[] filledAbove;
+
+    private int[] triangles = new int[48];
+    private int triangleCount;
+
+    private SegmentTriangulator(double[] x, double[] y, int[] start, int[] end, boolean[] filledAbove) {
+        this.x = x;
+        this.y = y;
+        this.start = start;
+        this.end = end;
+        this.filledAbove = filledAbove;
+    }
+
+    public static Triangulation triangulate(SegmentBuffer segments, Epsilon eps) {
+        // the points are sorted by x, then by y, and the points the same within epsilon are merged
+        // x is snapped first, so the points with almost the same x are sorted by y together
+        double e = eps.epsilonAt(BoundingBox.of(segments).magnitude());
+        int endpoints = segments.size() * 2;
+        double[] xs = new double[endpoints];
+        double[] ys = new double[endpoints];
+        int[] order = new int[endpoints];
+        for (int i = 0; i < endpoints; i++) {
+            xs[i] = (i & 1) == 0 ? segments.x1(i / 2) : segments.x2(i / 2);
+            ys[i] = (i & 1) == 0 ? segments.y1(i / 2) : segments.y2(i / 2);
+            order[i] = i;
+        }
+        if (endpoints > 0)
+            PackedRTree.sort(order, xs, 0, endpoints - 1);
+        for (int i = 1; i < endpoints; i++) {
+            if (xs[order[i]] - xs[order[i - 1]] < e)
+                xs[order[i]] = xs[order[i - 1]];
+        }
+        for (int i = 0; i < endpoints; ) {
+            int j = i + 1;
+            while (j < endpoints && xs[order[j]] == xs[order[i]])
+                j++;
+            if (j - i > 1)
+                PackedRTree.sort(order, ys, i, j - 1);
+            i = j;
+        }
+
+        double[] x = new double[endpoints];
+        double[] y = new double[endpoints];
+        int[] vertexOf = new int[endpoints];
+        int vertices = 0;
+        for (int i = 0; i < endpoints; i++) {
+            int k = order[i];
+            if (vertices == 0 || xs[k] != x[vertices - 1] || ys[k] - y[vertices - 1] >= e) {
+                x[vertices] = xs[k];
+                y[vertices] = ys[k];
+                vertices++;
+            }
+            vertexOf[k] = vertices - 1;
+        }
+
+        // only the boundaries of the filled area, from their first point to their last one
+        int[] start = new int[segments.size()];
+        int[] end = new int[segments.size()];
+        boolean[] filledAbove = new boolean[segments.size()];
+        int count = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            boolean above = segments.is(i, MY_ABOVE);
+            if (above == segments.is(i, MY_BELOW))
+                continue;
+            int v1 = vertexOf[i * 2];
+            int v2 = vertexOf[i * 2 + 1];
+            if (v1 == v2)
+                continue; // shorter than epsilon
+            // going the other way swaps the sides
+            start[count] = Math.min(v1, v2);
+            end[count] = Math.max(v1, v2);
+            filledAbove[count] = v1 < v2 == above;
+            count++;
+        }
+
+        SegmentTriangulator triangulator = new SegmentTriangulator(x, y, start, end, filledAbove);
+        triangulator.sweep(vertices, count);
+        return new Triangulation(
+                pack(x, y, vertices),
+                Arrays.copyOf(triangulator.triangles, triangulator.triangleCount * 3)
+        );
+    }
+
+    private static double[] pack(double[] x, double[] y, int vertices) {
+        double[] packed = new double[vertices * 2];
+        for (int i = 0; i < vertices; i++) {
+            packed[i * 2] = x[i];
+            packed[i * 2 + 1] = y[i];
+        }
+        return packed;
+    }
+
+    private void sweep(int vertices, int segments) {
+        // the segments starting at every point
+        int[] startsAt = new int[vertices + 1];
+        for (int s = 0; s < segments; s++)
+            startsAt[this.start[s] + 1]++;
+        for (int v = 0; v < vertices; v++)
+            startsAt[v + 1] += startsAt[v];
+        int[] starting = new int[segments];
+        int[] next = Arrays.copyOf(startsAt, vertices);
+        for (int s = 0; s < segments; s++)
+            starting[next[this.start[s]]++] = s;
+
+        List<Active> status = new ArrayList<>();
+        List<Integer> started = new ArrayList<>();
+        for (int p = 0; p < vertices; p++) {
+            // the segments below p, and those ending at p, which are next to each other
+            int lo = 0;
+            int hi = status.size();
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (this.below(status.get(mid).segment, p))
+                    lo = mid + 1;
+                else
+                    hi = mid;
+            }
+            int ending = 0;
+            while (lo + ending < status.size() && this.end[status.get(lo + ending).segment] == p)
+                ending++;
+
+            started.clear();
+            for (int i = startsAt[p]; i < startsAt[p + 1]; i++)
+                started.add(starting[i]);
+            int point = p;
+            started.sort((s, t) -> this.compareDirections(point, s, t));
+
+            Active pred = lo > 0 ? status.get(lo - 1) : null;
+            Gap lowerGap = pred != null ? pred.gap : null;
+            Gap upperGap = ending > 0 ? status.get(lo + ending - 1).gap : lowerGap;
+            for (int i = 0; i < ending - 1; i++) {
+                Gap closed = status.get(lo + i).gap;
+                if (closed != null)
+                    this.finish(closed, p);
+            }
+            status.subList(lo, lo + ending).clear();
+
+            Gap top;
+            if (ending > 0 && !started.isEmpty()) {
+                // p is on the upper side of the gap below, and on the lower side of the gap above
+                if (lowerGap != null)
+                    this.feed(lowerGap, p, UPPER);
+                if (upperGap != null)
+                    this.feed(upperGap, p, LOWER);
+                top = upperGap;
+            } else if (ending > 0) {
+                top = null;
+                if (lowerGap != null && upperGap != null) {
+                    // the gaps below and above p merge
+                    this.feed(lowerGap, p, UPPER);
+                    this.feed(upperGap, p, LOWER);
+                    lowerGap.upper = upperGap.lower;
+                } else if (lowerGap != null) {
+                    this.finish(lowerGap, p);
+                    pred.gap = null;
+                } else if (upperGap != null) {
+                    this.finish(upperGap, p);
+                }
+            } else if (lowerGap != null) {
+                // p is inside a filled gap, which splits in two
+                top = this.split(lowerGap, p);
+            } else {
+                top = null;
+            }
+
+            // the gaps between the segments starting at p
+            List<Active> inserted = new ArrayList<>(started.size());
+            for (int i = 0; i < started.size(); i++) {
+                int s = started.get(i);
+                Gap gap;
+                if (i == started.size() - 1)
+                    gap = top;
+                else
+                    gap = this.filledAbove[s] ? new Gap(new Chain(p)) : null;
+                inserted.add(new Active(s, gap));
+            }
+            status.addAll(lo, inserted);
+        }
+    }
+
+    private boolean below(int segment, int p) {
+        // true if the segment is below p
+        int a = this.start[segment];
+        int b = this.end[segment];
+        if (b == p)
+            return false;
+        return (this.x[b] - this.x[a]) * (this.y[p] - this.y[a]) - (this.y[b] - this.y[a]) * (this.x[p] - this.x[a]) > 0;
+    }
+
+    private int compareDirections(int p, int s, int t) {
+        // bottom to top, as seen from their common first point
+        double sx = this.x[this.end[s]] - this.x[p];
+        double sy = this.y[this.end[s]] - this.y[p];
+        double tx = this.x[this.end[t]] - this.x[p];
+        double ty = this.y[this.end[t]] - this.y[p];
+        double cross = sx * ty - sy * tx;
+        return cross > 0 ? -1 : cross < 0 ? 1 : 0;
+    }
+
+    private void feed(Gap gap, int p, int side) {
+        if (gap.upper == null) {
+            this.feed(gap.lower, p, side);
+            return;
+        }
+
+        // p ends one of the two chains left by a merge, and the other one goes on
+        if (side == UPPER) {
+            this.feed(gap.upper, p, UPPER);
+            this.feed(gap.lower, p, UPPER);
+        } else {
+            this.feed(gap.lower, p, LOWER);
+            this.feed(gap.upper, p, LOWER);
+            gap.lower = gap.upper;
+        }
+        gap.upper = null;
+    }
+
+    private void feed(Chain chain, int p, int side) {
+        if (chain.size == 1) {
+            chain.push(p);
+            chain.side = side;
+        } else if (side != chain.side) {
+            // p sees the whole stack
+            for (int i = 0; i < chain.size - 1; i++)
+                this.triangle(chain.points[i], chain.points[i + 1], p);
+            int top = chain.top();
+            chain.size = 0;
+            chain.push(top);
+            chain.push(p);
+            chain.side = side;
+        } else {
+            // p sees the stack up to its first reflex point
+            int last = chain.points[--chain.size];
+            while (chain.size > 0 && this.convex(chain.top(), last, p, side)) {
+                this.triangle(chain.top(), last, p);
+                last = chain.points[--chain.size];
+            }
+            chain.push(last);
+            chain.push(p);
+        }
+    }
+
+    private Gap split(Gap gap, int p) {
+        // the gap is split by a diagonal from p to its last point, gap goes on below p and the
+        // returned gap above it
+        if (gap.upper != null) {
+            Chain upper = gap.upper;
+            gap.upper = null;
+            this.feed(gap.lower, p, UPPER);
+            this.feed(upper, p, LOWER);
+            return new Gap(upper);
+        }
+
+        Chain chain = gap.lower;
+        int top = chain.top();
+        if (chain.size == 1) {
+            gap.lower = new Chain(top, p, UPPER);
+            return new Gap(new Chain(top, p, LOWER));
+        }
+        if (chain.side == UPPER) {
+            this.feed(chain, p, UPPER);
+            return new Gap(new Chain(top, p, LOWER));
+        }
+        gap.lower = new Chain(top, p, UPPER);
+        this.feed(chain, p, LOWER);
+        return new Gap(chain);
+    }
+
+    private void finish(Gap gap, int p) {
+        this.finish(gap.lower, p);
+        if (gap.upper != null)
+            this.finish(gap.upper, p);
+    }
+
+    private void finish(Chain chain, int p) {
+        // p is the last point of the piece, and sees the whole stack
+        for (int i = 0; i < chain.size - 1; i++)
+            this.triangle(chain.points[i], chain.points[i + 1], p);
+        chain.size = 0;
+    }
+
+    private boolean convex(int a, int b, int p, int side) {
+        // true if b can be cut off, that is, if the chain turns towards the inside of the gap at b
+        double cross = (this.x[b] - this.x[a]) * (this.y[p] - this.y[b]) - (this.y[b] - this.y[a]) * (this.x[p] - this.x[b]);
+        return side == UPPER ? cross < 0 : cross > 0;
+    }
+
+    private void triangle(int a, int b, int c) {
+        double cross = (this.x[b] - this.x[a]) * (this.y[c] - this.y[a]) - (this.y[b] - this.y[a]) * (this.x[c] - this.x[a]);
+        if (cross == 0)
+            return; // no area
+        if (this.triangles.length < this.triangleCount * 3 + 3)
+            this.triangles = Arrays.copyOf(this.triangles, this.triangles.length * 2);
+        int i = this.triangleCount * 3;
+        this.triangles[i] = a;
+        this.triangles[i + 1] = cross > 0 ? b : c;
+        this.triangles[i + 2] = cross > 0 ? c : b;
+        this.triangleCount++;
+    }
+}
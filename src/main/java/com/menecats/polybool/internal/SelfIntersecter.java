@@ -1,19 +1,154 @@
 package com.menecats.polybool.internal;
 
 import com.menecats.polybool.Epsilon;
-import com.menecats.polybool.models.Segment;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+import static com.menecats.polybool.internal.SegmentBuffer.*;
+
 public class SelfIntersecter extends AbstractIntersecter {
+    // with monotone chains, every ring is split into runs of edges that keep moving in the same
+    // direction, in the order the sweep visits points (by x, then by y)
+    // two edges of the same chain can only share their common endpoint, so they never need an
+    // intersection test, and neither do two chains whose bounding boxes are apart
+    private final boolean monotoneChains;
+    private int[] chainOf; // the chain of every segment, -1 for none
+    private final List<BoundingBox> chainBounds = new ArrayList<>();
+
     public SelfIntersecter(Epsilon eps) {
-        super(true, eps);
+        this(eps, false);
+    }
+
+    public SelfIntersecter(Epsilon eps, boolean monotoneChains) {
+        super(eps);
+        this.monotoneChains = monotoneChains;
+        if (monotoneChains) {
+            this.chainOf = new int[16];
+            Arrays.fill(this.chainOf, -1);
+        }
+    }
+
+    @Override
+    protected int segmentCopy(double x1, double y1, double x2, double y2, SegmentBuffer source, int seg) {
+        int copy = super.segmentCopy(x1, y1, x2, y2, source, seg);
+        if (this.monotoneChains && source == this.segs)
+            this.chain(copy, this.chainOf[seg]); // a piece of a divided segment stays in its chain
+        return copy;
+    }
+
+    @Override
+    protected boolean segmentsMayIntersect(int seg1, int seg2) {
+        if (!this.monotoneChains)
+            return true;
+
+        int chain1 = this.chainOf[seg1];
+        int chain2 = this.chainOf[seg2];
+        if (chain1 < 0 || chain2 < 0)
+            return true;
+        if (chain1 == chain2)
+            return false;
+        return this.chainBounds.get(chain1).intersects(this.chainBounds.get(chain2), this.eps);
+    }
+
+    private void chain(int seg, int chain) {
+        if (seg >= this.chainOf.length) {
+            int length = this.chainOf.length;
+            this.chainOf = Arrays.copyOf(this.chainOf, Math.max(seg + 1, length * 2));
+            Arrays.fill(this.chainOf, length, this.chainOf.length, -1);
+        }
+        this.chainOf[seg] = chain;
+    }
+
+    @Override
+    protected boolean segmentsMerge(IntersecterContent ev, IntersecterContent eve) {
+        int fill = this.segs.fill(ev.seg);
+
+        boolean toggle; // are we a toggling edge?
+        if ((fill & MY_KNOWN) == 0)
+            toggle = true;
+        else
+            toggle = ((fill & MY_ABOVE) != 0) != ((fill & MY_BELOW) != 0);
+
+        // merge two segments that belong to the same polygon
+        // think of this as sandwiching two segments together, where `eve.seg` is
+        // the bottom -- this will cause the above fill flag to toggle
+        if (toggle)
+            this.segs.setFill(eve.seg, this.segs.fill(eve.seg) ^ MY_ABOVE);
+        return true;
+    }
+
+    @Override
+    protected void segmentFill(IntersecterContent ev, IntersecterContent below,
+                               boolean primaryPolyInverted, boolean secondaryPolyInverted) {
+        int fill = this.segs.fill(ev.seg);
+
+        boolean toggle; // are we a toggling edge?
+        if ((fill & MY_KNOWN) == 0) // if we are a new segment...
+            toggle = true; // then we toggle
+        else // we are a segment that has previous knowledge from a division
+            toggle = ((fill & MY_ABOVE) != 0) != ((fill & MY_BELOW) != 0); // calculate toggle
+
+        // next, calculate whether we are filled below us
+        boolean fillBelow;
+        if (below == null) { // if nothing is below us...
+            // we are filled below us if the polygon is inverted
+            fillBelow = primaryPolyInverted;
+        } else {
+            // otherwise, we know the answer -- it's the same if whatever is below
+            // us is filled above it
+            fillBelow = this.segs.is(below.seg, MY_ABOVE);
+        }
+
+        // since now we know if we're filled below us, we can calculate whether
+        // we're filled above us by applying toggle to whatever is below us
+        boolean fillAbove = toggle != fillBelow;
+
+        this.segs.setFill(ev.seg, (fill & ~MY) | MY_KNOWN |
+                (fillAbove ? MY_ABOVE : 0) |
+                (fillBelow ? MY_BELOW : 0));
     }
 
     public void addRegion(List<double[]> region) {
         // regions are a list of points:
         //  [ [0, 0], [100, 0], [50, 100] ]
         // you can add multiple regions before running calculate
+        if (this.monotoneChains) {
+            this.addChains(region);
+            return;
+        }
+
+        double[] pt1;
+        double[] pt2 = region.get(region.size() - 1);
+        for (double[] pt : region) {
+            pt1 = pt2;
+            pt2 = pt;
+            this.addEdge(pt1, pt2);
+        }
+    }
+
+    public void addEdge(double[] pt1, double[] pt2) {
+        // a single edge of a region, for callers that split the regions themselves
+        int forward = this.eps.pointsCompare(pt1, pt2);
+        if (forward == 0) // points are equal, so we have a zero-length segment
+            return; // just skip it
+
+        this.eventAddSegment(
+                this.segmentNew(
+                        forward < 0 ? pt1 : pt2,
+                        forward < 0 ? pt2 : pt1
+                ),
+                true
+        );
+    }
+
+    private void addChains(List<double[]> region) {
+        // same as addRegion, but the edges are grouped in monotone chains
+        List<double[]> chain = new ArrayList<>();
+        int direction = 0;
+
         double[] pt1;
         double[] pt2 = region.get(region.size() - 1);
         for (double[] pt : region) {
@@ -21,20 +156,49 @@ public class SelfIntersecter extends AbstractIntersecter {
             pt2 = pt;
 
             int forward = this.eps.pointsCompare(pt1, pt2);
-            if (forward == 0) // points are equal, so we have a zero-length segment
-                continue; // just skip it
-
-            this.eventAddSegment(
-                    this.segmentNew(
-                            forward < 0 ? pt1 : pt2,
-                            forward < 0 ? pt2 : pt1
-                    ),
-                    true
-            );
+            if (forward == 0) { // points are equal, so we have a zero-length segment
+                this.addChain(chain, direction); // just skip it, but don't chain across it
+                chain.clear();
+                direction = 0;
+                continue;
+            }
+
+            if (forward != direction) {
+                this.addChain(chain, direction);
+                chain.clear();
+                chain.add(pt1);
+                direction = forward;
+            }
+            chain.add(pt2);
+        }
+        this.addChain(chain, direction);
+    }
+
+    private void addChain(List<double[]> points, int direction) {
+        if (points.size() < 2)
+            return;
+
+        // walk the chain from its smallest point, so every edge's events come after the events of
+        // the previous edge, and the event queue only needs to be searched from there
+        int n = points.size();
+        int chain = this.chainBounds.size();
+        this.chainBounds.add(BoundingBox.ofRegions(Collections.singletonList(points)));
+
+        LinkedList<IntersecterContent> after = null;
+        for (int i = 0; i < n - 1; i++) {
+            double[] start = direction < 0 ? points.get(i) : points.get(n - 1 - i);
+            double[] end = direction < 0 ? points.get(i + 1) : points.get(n - 2 - i);
+
+            int seg = this.segmentNew(start, end);
+            this.chain(seg, chain);
+            LinkedList<IntersecterContent> ev = after == null
+                    ? this.eventAddSegment(seg, true)
+                    : this.eventAddSegment(seg, true, after);
+            after = ev.getContent().other;
         }
     }
 
-    public List<Segment> calculate(boolean inverted) {
+    public SegmentBuffer calculate(boolean inverted) {
         // is the polygon inverted?
         // returns segments
         return this.baseCalculate(inverted, false);
@@ -0,0 +1,325 @@
+package com.menecats.polybool.internal;
+
+import com.menecats.polybool.Epsilon;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+public final class SlabSweep {
+    // splits the x-range in vertical slabs holding about the same number of edges, cuts the edges
+    // crossing the boundaries between them, and runs an independent sweep in every slab
+    //
+    // the fill of a segment only depends on what is below it, and far below every slab the fill is
+    // given by the inverted flags alone, so the slabs don't need anything from each other
+    // the boundaries are kept away from every vertex, so that the only points on them are the cuts,
+    // and when the sweeps of both sides leave every cut alone, its pieces are joined back, which
+    // gives the segments of a single sweep, except that points computed from a cut edge, such as
+    // its intersections, may differ from theirs in the last bits
+    // an intersection within epsilon of a boundary, or two cuts within epsilon of each other, are
+    // seen differently by the sweeps of the two sides (each one snaps them alone), so the
+    // boundary is dropped, and the two slabs are swept again as one
+    // the segments come out in the order of a single sweep, which decides how the chainer joins
+    // regions touching at a point
+    private static final int MIN_EDGES = 2048; // per slab, smaller inputs use a single sweep
+
+    private final double[] boundaries; // increasing, between the slabs
+    private final double tolerance; // how close to a boundary a point must stay away from
+
+    private SlabSweep(double[] boundaries, double tolerance) {
+        this.boundaries = boundaries;
+        this.tolerance = tolerance;
+    }
+
+    public static SegmentBuffer selfIntersect(Epsilon eps, List<List<double[]>> regions, boolean inverted) {
+        // the segments of the regions, as SelfIntersecter, or null when they are too few to be worth it
+        SegmentBuffer edges = new SegmentBuffer();
+        for (List<double[]> region : regions) {
+            if (region.isEmpty())
+                continue;
+            double[] pt1;
+            double[] pt2 = region.get(region.size() - 1);
+            for (double[] pt : region) {
+                pt1 = pt2;
+                pt2 = pt;
+                int forward = eps.pointsCompare(pt1, pt2);
+                if (forward == 0)
+                    continue;
+                double[] start = forward < 0 ? pt1 : pt2;
+                double[] end = forward < 0 ? pt2 : pt1;
+                edges.add(start[0], start[1], end[0], end[1], 0);
+            }
+        }
+
+        return sweep(eps, edges, new SegmentBuffer[]{edges}, pieces -> {
+            SelfIntersecter i = new SelfIntersecter(eps);
+            SegmentBuffer slabPieces = pieces[0];
+            for (int k = 0; k < slabPieces.size(); k++) {
+                i.addEdge(
+                        new double[]{slabPieces.x1(k), slabPieces.y1(k)},
+                        new double[]{slabPieces.x2(k), slabPieces.y2(k)}
+                );
+            }
+            return i.calculate(inverted);
+        });
+    }
+
+    public static SegmentBuffer combine(Epsilon eps, SegmentBuffer segments1, boolean inverted1, SegmentBuffer segments2, boolean inverted2) {
+        // the combined segments, as NonSelfIntersecter, or null when they are too few to be worth it
+        SegmentBuffer edges = new SegmentBuffer(segments1.size() + segments2.size());
+        for (int i = 0; i < segments1.size(); i++)
+            edges.add(segments1, i, 0);
+        for (int i = 0; i < segments2.size(); i++)
+            edges.add(segments2, i, 0);
+
+        return sweep(eps, edges, new SegmentBuffer[]{segments1, segments2}, pieces ->
+                new NonSelfIntersecter(eps).calculate(pieces[0], inverted1, pieces[1], inverted2)
+        );
+    }
+
+    private static SegmentBuffer sweep(Epsilon eps, SegmentBuffer edges, SegmentBuffer[] inputs,
+                                       Function<SegmentBuffer[], SegmentBuffer> sweep) {
+        // `sweep` gets the pieces of every input in a slab, and returns the segments of the slab
+        // returns null when there are too few edges, or when no boundary is left
+        SlabSweep slabs = SlabSweep.of(eps, edges);
+        SlabSweep previous = null;
+        SegmentBuffer[] previousResults = null;
+        while (slabs != null) {
+            SegmentBuffer[][] pieces = new SegmentBuffer[inputs.length][];
+            for (int k = 0; k < inputs.length; k++)
+                pieces[k] = slabs.cut(inputs[k]);
+
+            SlabSweep swept = slabs;
+            SlabSweep last = previous;
+            SegmentBuffer[] lastResults = previousResults;
+            SegmentBuffer[] results = new SegmentBuffer[slabs.boundaries.length + 1];
+            RuntimeException[] failures = new RuntimeException[results.length];
+            IntStream.range(0, results.length).parallel().forEach(slab -> {
+                int before = last == null ? -1 : last.sameSlab(swept, slab);
+                if (before >= 0) {
+                    results[slab] = lastResults[before]; // its boundaries are still there
+                    return;
+                }
+                SegmentBuffer[] slabPieces = new SegmentBuffer[inputs.length];
+                for (int k = 0; k < inputs.length; k++)
+                    slabPieces[k] = pieces[k][slab];
+                try {
+                    results[slab] = sweep.apply(slabPieces);
+                } catch (RuntimeException e) {
+                    failures[slab] = e;
+                }
+            });
+
+            // the error of the leftmost failed slab, as the sweep would throw it, rather than
+            // wrapped by the pool of the thread it was thrown in
+            for (RuntimeException failure : failures) {
+                if (failure != null)
+                    throw failure;
+            }
+
+            boolean[] kept = new boolean[slabs.boundaries.length];
+            int count = 0;
+            for (int b = 0; b < kept.length; b++) {
+                kept[b] = slabs.clean(b, results[b], results[b + 1]);
+                if (kept[b])
+                    count++;
+            }
+            if (count == kept.length)
+                return slabs.join(results);
+
+            previous = slabs;
+            previousResults = results;
+            slabs = slabs.keep(kept, count);
+        }
+        return null;
+    }
+
+    private static SlabSweep of(Epsilon eps, SegmentBuffer edges) {
+        int slabs = Math.min(ForkJoinPool.getCommonPoolParallelism(), edges.size() / MIN_EDGES);
+        if (slabs < 2)
+            return null;
+
+        // the boundaries are at the quantiles of the ends of the edges, moved to the middle of the
+        // next gap wide enough to keep them away from any vertex
+        double[] xs = new double[edges.size() * 2];
+        for (int i = 0; i < edges.size(); i++) {
+            xs[i * 2] = edges.x1(i);
+            xs[i * 2 + 1] = edges.x2(i);
+        }
+        Arrays.sort(xs);
+        double gap = 4 * eps.epsilonAt(BoundingBox.of(edges).magnitude());
+        double[] boundaries = new double[slabs - 1];
+        int count = 0;
+        int j = 0;
+        for (int s = 1; s < slabs; s++) {
+            j = Math.max(j, (int) ((long) xs.length * s / slabs));
+            while (j + 1 < xs.length && xs[j + 1] - xs[j] <= gap)
+                j++;
+            if (j + 1 >= xs.length)
+                break;
+            boundaries[count++] = xs[j] + (xs[j + 1] - xs[j]) / 2;
+            j++;
+        }
+        if (count == 0)
+            return null;
+        return new SlabSweep(Arrays.copyOf(boundaries, count), gap / 2);
+    }
+
+    private SlabSweep keep(boolean[] kept, int count) {
+        // the same slabs without the boundaries that aren't kept, or null when none is
+        if (count == 0)
+            return null;
+        double[] boundaries = new double[count];
+        int k = 0;
+        for (int b = 0; b < this.boundaries.length; b++) {
+            if (kept[b])
+                boundaries[k++] = this.boundaries[b];
+        }
+        return new SlabSweep(boundaries, this.tolerance);
+    }
+
+    private int sameSlab(SlabSweep other, int slab) {
+        // the slab of these boundaries with the same sides as `slab` of `other`, or -1
+        double lo = slab == 0 ? Double.NEGATIVE_INFINITY : other.boundaries[slab - 1];
+        double hi = slab == other.boundaries.length ? Double.POSITIVE_INFINITY : other.boundaries[slab];
+        int mine = lo == Double.NEGATIVE_INFINITY ? 0 : Arrays.binarySearch(this.boundaries, lo) + 1;
+        if (mine <= 0 && lo != Double.NEGATIVE_INFINITY)
+            return -1;
+        double myHi = mine == this.boundaries.length ? Double.POSITIVE_INFINITY : this.boundaries[mine];
+        return myHi == hi ? mine : -1;
+    }
+
+    private int slab(double x) {
+        // no vertex is on a boundary, so the search never finds one
+        int index = Arrays.binarySearch(this.boundaries, x);
+        return index < 0 ? -index - 1 : index;
+    }
+
+    private SegmentBuffer[] cut(SegmentBuffer segments) {
+        // the pieces of the segments in every slab, with their own fill
+        // the cut points are computed once, so the pieces on both sides end at the same point
+        SegmentBuffer[] pieces = new SegmentBuffer[this.boundaries.length + 1];
+        for (int s = 0; s < pieces.length; s++)
+            pieces[s] = new SegmentBuffer();
+        for (int i = 0; i < segments.size(); i++) {
+            int fill = segments.fill(i);
+            double x1 = segments.x1(i);
+            double y1 = segments.y1(i);
+            double x2 = segments.x2(i);
+            double y2 = segments.y2(i);
+            int first = this.slab(x1);
+            int last = this.slab(x2);
+            // segments crossing a boundary go right, since they are wider than the gap around it
+            for (int s = first; s < last; s++) {
+                double b = this.boundaries[s];
+                double y = segments.y1(i) + (b - segments.x1(i)) * (y2 - segments.y1(i)) / (x2 - segments.x1(i));
+                pieces[s].add(x1, y1, b, y, fill);
+                x1 = b;
+                y1 = y;
+            }
+            pieces[last].add(x1, y1, x2, y2, fill);
+        }
+        return pieces;
+    }
+
+    private boolean clean(int boundary, SegmentBuffer left, SegmentBuffer right) {
+        // whether the sweeps of both sides left the cuts on a boundary alone: every piece ending on
+        // it meets a single piece starting from the same point with the same fill, far from the
+        // other cuts, and no other point of the two slabs is close to it
+        double b = this.boundaries[boundary];
+        if (this.near(left, b) || this.near(right, b))
+            return false;
+        int[] ending = this.onBoundary(left, b, false);
+        int[] starting = this.onBoundary(right, b, true);
+        if (ending.length != starting.length)
+            return false;
+        for (int k = 0; k < ending.length; k++) {
+            double y = left.y2(ending[k]);
+            if (right.y1(starting[k]) != y || left.fill(ending[k]) != right.fill(starting[k]))
+                return false;
+            if (k > 0 && y - left.y2(ending[k - 1]) <= this.tolerance)
+                return false;
+        }
+        return true;
+    }
+
+    private boolean near(SegmentBuffer segments, double b) {
+        // whether a point of the segments, other than the cuts, is within tolerance of x = b
+        for (int i = 0; i < segments.size(); i++) {
+            double x1 = segments.x1(i);
+            double x2 = segments.x2(i);
+            if ((x1 != b && Math.abs(x1 - b) <= this.tolerance) || (x2 != b && Math.abs(x2 - b) <= this.tolerance))
+                return true;
+        }
+        return false;
+    }
+
+    private SegmentBuffer join(SegmentBuffer[] results) {
+        // the pieces of the slabs, with the pieces meeting on every boundary joined back, in the
+        // order of a single sweep
+        // every boundary is clean, so the pieces ending on it, and the ones starting from it, pair
+        // up in order of y
+        int[] offsets = new int[results.length + 1];
+        for (int s = 0; s < results.length; s++)
+            offsets[s + 1] = offsets[s] + results[s].size();
+        int[] next = new int[offsets[results.length]]; // the piece continuing a piece, or -1
+        boolean[] continued = new boolean[next.length]; // the pieces continuing another one
+        Arrays.fill(next, -1);
+
+        for (int s = 0; s < this.boundaries.length; s++) {
+            int[] ending = this.onBoundary(results[s], this.boundaries[s], false);
+            int[] starting = this.onBoundary(results[s + 1], this.boundaries[s], true);
+            for (int k = 0; k < ending.length; k++) {
+                next[offsets[s] + ending[k]] = offsets[s + 1] + starting[k];
+                continued[offsets[s + 1] + starting[k]] = true;
+            }
+        }
+
+        SegmentBuffer joined = new SegmentBuffer(next.length);
+        for (int s = 0; s < results.length; s++) {
+            SegmentBuffer result = results[s];
+            for (int i = 0; i < result.size(); i++) {
+                int piece = offsets[s] + i;
+                if (continued[piece])
+                    continue;
+                int last = piece;
+                int lastSlab = s;
+                while (next[last] >= 0) {
+                    last = next[last];
+                    lastSlab++;
+                }
+                if (last == piece) {
+                    joined.add(result, i, result.fill(i));
+                } else {
+                    SegmentBuffer end = results[lastSlab];
+                    int index = last - offsets[lastSlab];
+                    joined.add(result.x1(i), result.y1(i), end.x2(index), end.y2(index), result.fill(i));
+                }
+            }
+        }
+
+        int[] order = AbstractIntersecter.endOrder(joined);
+        SegmentBuffer segments = new SegmentBuffer(joined.size());
+        for (int i : order)
+            segments.add(joined, i, joined.fill(i));
+        return segments;
+    }
+
+    private int[] onBoundary(SegmentBuffer segments, double b, boolean start) {
+        // the segments starting, or ending, exactly on a boundary, sorted by the y of that point
+        int count = 0;
+        int[] found = new int[segments.size()];
+        for (int i = 0; i < segments.size(); i++) {
+            if ((start ? segments.x1(i) : segments.x2(i)) == b)
+                found[count++] = i;
+        }
+        double[] keys = new double[segments.size()];
+        int[] order = Arrays.copyOf(found, count);
+        for (int k = 0; k < count; k++)
+            keys[order[k]] = start ? segments.y1(order[k]) : segments.y2(order[k]);
+        PackedRTree.sort(order, keys, 0, count - 1);
+        return order;
+    }
+}
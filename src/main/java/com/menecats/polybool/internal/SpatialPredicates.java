@@ -0,0 +1,136 @@
+package com.menecats.polybool.internal;
+
+import com.menecats.polybool.Epsilon;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.menecats.polybool.internal.SegmentBuffer.*;
+
+public final class SpatialPredicates {
+    private static final class Touching {
+        final List<double[]> points1 = new ArrayList<>();
+        final List<double[]> points2 = new ArrayList<>();
+        boolean interiors;
+        boolean boundaries;
+    }
+
+    // the combine sweep reports every segment with the fill of the primary polygon in `myFill` and
+    // the fill of the secondary polygon in `otherFill`, so the predicates below only need to look
+    // at the first segments that settle the answer, and can abandon the sweep right after
+
+    public static boolean intersects(Epsilon eps,
+                                     SegmentBuffer segments1, boolean inverted1,
+                                     SegmentBuffer segments2, boolean inverted2) {
+        // the polygons share at least one point, either inside or along their boundaries
+        if (inverted1 && inverted2)
+            return true; // both contain everything far away
+
+        Touching t = sweep(eps, segments1, inverted1, segments2, inverted2, true);
+        return t.interiors || t.boundaries || sharePoint(eps, t);
+    }
+
+    public static boolean touches(Epsilon eps,
+                                  SegmentBuffer segments1, boolean inverted1,
+                                  SegmentBuffer segments2, boolean inverted2) {
+        // the polygons share boundary points, but none of their interior
+        if (inverted1 && inverted2)
+            return false;
+
+        Touching t = sweep(eps, segments1, inverted1, segments2, inverted2, false);
+        return !t.interiors && (t.boundaries || sharePoint(eps, t));
+    }
+
+    public static boolean contains(Epsilon eps,
+                                   SegmentBuffer segments1, boolean inverted1,
+                                   SegmentBuffer segments2, boolean inverted2) {
+        // no part of the secondary polygon lies outside the primary polygon
+        if (inverted2 && !inverted1)
+            return false; // the secondary polygon is unbounded, but the primary isn't
+        if (segments2.isEmpty() && !inverted2)
+            return false; // nothing is contained in an empty polygon
+
+        final boolean[] outside = {false};
+        new NonSelfIntersecter(eps).calculate(segments1, inverted1, segments2, inverted2, (segs, seg) -> {
+            // stop at the first side filled by the secondary polygon and not by the primary
+            int fill = segs.fill(seg);
+            outside[0] = ((fill & OTHER_ABOVE) != 0 && (fill & MY_ABOVE) == 0) ||
+                    ((fill & OTHER_BELOW) != 0 && (fill & MY_BELOW) == 0);
+            return !outside[0];
+        });
+        return !outside[0];
+    }
+
+    private static Touching sweep(Epsilon eps,
+                                  SegmentBuffer segments1, boolean inverted1,
+                                  SegmentBuffer segments2, boolean inverted2,
+                                  boolean stopOnBoundaries) {
+        final Touching t = new Touching();
+
+        new NonSelfIntersecter(eps).calculate(segments1, inverted1, segments2, inverted2, (segs, seg) -> {
+            int fill = segs.fill(seg);
+            if (((fill & MY_ABOVE) != 0 && (fill & OTHER_ABOVE) != 0) || ((fill & MY_BELOW) != 0 && (fill & OTHER_BELOW) != 0)) {
+                // one side of this segment is filled by both polygons
+                t.interiors = true;
+                return false;
+            }
+
+            boolean edge1 = ((fill & MY_ABOVE) != 0) != ((fill & MY_BELOW) != 0);
+            boolean edge2 = ((fill & OTHER_ABOVE) != 0) != ((fill & OTHER_BELOW) != 0);
+            if (edge1 && edge2) {
+                // both polygons have an edge here, but they fill opposite sides
+                t.boundaries = true;
+                return !stopOnBoundaries;
+            }
+            if (!edge1 && !edge2)
+                return true; // not an edge of either polygon, so it can't be a touching point
+
+            // remember the endpoints, so we can look for vertices shared by both polygons later
+            // the sweep divides segments wherever they meet, so a touching point is always an
+            // endpoint of both polygons
+            List<double[]> points = edge1 ? t.points1 : t.points2;
+            points.add(new double[]{segs.x1(seg), segs.y1(seg)});
+            points.add(new double[]{segs.x2(seg), segs.y2(seg)});
+            return true;
+        });
+
+        return t;
+    }
+
+    private static boolean sharePoint(Epsilon eps, Touching t) {
+        if (t.points1.isEmpty() || t.points2.isEmpty())
+            return false;
+
+        // sort exactly by x, then only compare the points of the second polygon that fall within
+        // epsilon of each point of the first one
+        t.points2.sort((p1, p2) -> Double.compare(p1[0], p2[0]));
+
+        // the window is wide enough for the largest of the points
+        double magnitude = 0;
+        for (List<double[]> points : Arrays.asList(t.points1, t.points2)) {
+            for (double[] pt : points)
+                magnitude = Math.max(magnitude, Math.max(Math.abs(pt[0]), Math.abs(pt[1])));
+        }
+        double e = eps.epsilonAt(magnitude);
+        for (double[] pt : t.points1) {
+            int lo = 0;
+            int hi = t.points2.size();
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (t.points2.get(mid)[0] < pt[0] - e)
+                    lo = mid + 1;
+                else
+                    hi = mid;
+            }
+            for (int j = lo; j < t.points2.size() && t.points2.get(j)[0] <= pt[0] + e; j++) {
+                if (eps.pointsSame(pt, t.points2.get(j)))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private SpatialPredicates() {
+    }
+}
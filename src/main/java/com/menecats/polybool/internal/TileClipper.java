@@ -0,0 +1,77 @@
+package com.menecats.polybool.internal;
+
+import com.menecats.polybool.Epsilon;
+import com.menecats.polybool.TileSink;
+import com.menecats.polybool.models.Polygon;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+public final class TileClipper {
+    // every tile is clipped from the result of its parent tile, never from the whole polygon, so
+    // each level only works on the geometry that is left after the levels above it
+    // the buffer of a child tile is always inside the buffer of its parent, as the buffer is a
+    // fraction of the tile size
+    // the clipped regions of a tile are clean, so a tile is only empty where the polygon is, and
+    // the children of a tile that no region crosses keep its rings without sweeping them again
+
+    private final Epsilon eps;
+    private final double minX;
+    private final double minY;
+    private final double width;
+    private final double height;
+    private final int minZoom;
+    private final int maxZoom;
+    private final double buffer;
+    private final TileSink sink;
+
+    private TileClipper(Epsilon eps, double minX, double minY, double maxX, double maxY,
+                        int minZoom, int maxZoom, double buffer, TileSink sink) {
+        this.eps = eps;
+        this.minX = minX;
+        this.minY = minY;
+        this.width = maxX - minX;
+        this.height = maxY - minY;
+        this.minZoom = minZoom;
+        this.maxZoom = maxZoom;
+        this.buffer = buffer;
+        this.sink = sink;
+    }
+
+    public static void clip(Epsilon eps, Polygon polygon, double minX, double minY, double maxX, double maxY,
+                            int minZoom, int maxZoom, double buffer, TileSink sink) {
+        new TileClipper(eps, minX, minY, maxX, maxY, minZoom, maxZoom, buffer, sink).clipTile(polygon, 0, 0, 0);
+    }
+
+    private void clipTile(Polygon parent, int zoom, int x, int y) {
+        // the same formula for every tile, so neighbouring tiles share their sides exactly
+        double tiles = 1L << zoom;
+        double tileWidth = this.width / tiles;
+        double tileHeight = this.height / tiles;
+        double left = this.minX + this.width * x / tiles;
+        double bottom = this.minY + this.height * y / tiles;
+        double right = this.minX + this.width * (x + 1) / tiles;
+        double top = this.minY + this.height * (y + 1) / tiles;
+
+        List<List<double[]>> regions = RectClipper.clip(this.eps, parent,
+                left - tileWidth * this.buffer, bottom - tileHeight * this.buffer,
+                right + tileWidth * this.buffer, top + tileHeight * this.buffer
+        );
+        if (regions.isEmpty())
+            return;
+
+        Polygon polygon = new Polygon(regions, false, true);
+        if (zoom >= this.minZoom) {
+            synchronized (this.sink) {
+                this.sink.tile(zoom, x, y, polygon);
+            }
+        }
+        if (zoom == this.maxZoom)
+            return;
+
+        // the four subtrees don't share anything, so they run in parallel
+        IntStream.range(0, 4).parallel().forEach(child ->
+                this.clipTile(polygon, zoom + 1, x * 2 + (child & 1), y * 2 + (child >> 1))
+        );
+    }
+}
@@ -0,0 +1,240 @@
+package com.menecats.polybool.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public final class TopologySimplifier {
+    // Visvalingam-Whyatt, with the distance of a vertex from the line through its neighbours as
+    // its weight: the closest vertex goes first, its neighbours get their new weights, and so on
+    // until every vertex left is farther than the tolerance
+    //
+    // removing B from A-B-C replaces it with the edge A-C, which can only cross an edge of any
+    // ring, or touch one of its vertices, if a vertex is inside the triangle A-B-C (the rings
+    // don't cross A-B or B-C to begin with), so a vertex is kept while its triangle holds any
+    // other vertex, and tried again when one of its neighbours goes
+    // the vertices are in a static R-tree, rebuilt with the vertices left whenever half of them
+    // are gone, so the triangles that grow over removed vertices stay cheap, and the cost is
+    // O(n log n)
+    private static final int MIN_RING = 3; // vertices left in every ring
+
+    private final double[] xs;
+    private final double[] ys;
+    private final int[] prev;
+    private final int[] next;
+    private final int[] ring; // the ring of every vertex
+    private final int[] alive; // the vertices left in every ring
+    private final boolean[] removed;
+    private PackedRTree tree;
+    private int[] treeVertices; // the vertex of every item of the tree
+    private int treeRemoved; // the vertices of the tree that are gone
+
+    // a min-heap of vertices by weight, with the position of every vertex in it, -1 when out
+    private final int[] heap;
+    private final int[] position;
+    private final double[] weight;
+    private int heapSize;
+
+    private TopologySimplifier(List<List<double[]>> regions) {
+        int n = 0;
+        for (List<double[]> region : regions)
+            n += region.size();
+
+        this.xs = new double[n];
+        this.ys = new double[n];
+        this.prev = new int[n];
+        this.next = new int[n];
+        this.ring = new int[n];
+        this.alive = new int[regions.size()];
+        this.removed = new boolean[n];
+        this.heap = new int[n];
+        this.position = new int[n];
+        this.weight = new double[n];
+        Arrays.fill(this.position, -1);
+
+        int v = 0;
+        for (int r = 0; r < regions.size(); r++) {
+            List<double[]> region = regions.get(r);
+            int first = v;
+            for (double[] pt : region) {
+                this.xs[v] = pt[0];
+                this.ys[v] = pt[1];
+                this.ring[v] = r;
+                this.prev[v] = v == first ? first + region.size() - 1 : v - 1;
+                this.next[v] = v == first + region.size() - 1 ? first : v + 1;
+                v++;
+            }
+            this.alive[r] = region.size();
+        }
+        this.buildTree();
+    }
+
+    private void buildTree() {
+        int count = 0;
+        int[] vertices = new int[this.xs.length];
+        List<BoundingBox> boxes = new ArrayList<>();
+        for (int v = 0; v < this.xs.length; v++) {
+            if (this.removed[v])
+                continue;
+            vertices[count++] = v;
+            boxes.add(new BoundingBox(this.xs[v], this.ys[v], this.xs[v], this.ys[v]));
+        }
+        this.tree = new PackedRTree(boxes);
+        this.treeVertices = vertices;
+        this.treeRemoved = 0;
+    }
+
+    public static List<List<double[]>> simplify(List<List<double[]>> regions, double tolerance) {
+        // the regions without the vertices closer than `tolerance` to the line through their
+        // neighbours, never adding crossings or touching points between any of the rings
+        TopologySimplifier simplifier = new TopologySimplifier(regions);
+        simplifier.run(tolerance);
+        return simplifier.regions(regions.size());
+    }
+
+    private void run(double tolerance) {
+        for (int v = 0; v < this.xs.length; v++) {
+            if (this.alive[this.ring[v]] > MIN_RING)
+                this.push(v);
+        }
+
+        while (this.heapSize > 0) {
+            int v = this.pop();
+            if (this.weight[v] > tolerance)
+                break;
+            if (this.alive[this.ring[v]] <= MIN_RING || this.blocked(v))
+                continue; // back in the heap when a neighbour goes
+
+            int a = this.prev[v];
+            int c = this.next[v];
+            this.removed[v] = true;
+            this.next[a] = c;
+            this.prev[c] = a;
+            this.alive[this.ring[v]]--;
+            if (++this.treeRemoved * 2 > this.tree.size())
+                this.buildTree();
+            this.push(a);
+            this.push(c);
+        }
+    }
+
+    private double distance(int v) {
+        // from the line through the neighbours, or from the neighbour when they are the same point
+        double ax = this.xs[this.prev[v]];
+        double ay = this.ys[this.prev[v]];
+        double cx = this.xs[this.next[v]] - ax;
+        double cy = this.ys[this.next[v]] - ay;
+        double bx = this.xs[v] - ax;
+        double by = this.ys[v] - ay;
+        double length = Math.sqrt(cx * cx + cy * cy);
+        if (length == 0)
+            return Math.sqrt(bx * bx + by * by);
+        return Math.abs(cx * by - cy * bx) / length;
+    }
+
+    private boolean blocked(int v) {
+        // whether a vertex other than the corners is inside, or on, the triangle prev-v-next
+        int a = this.prev[v];
+        int c = this.next[v];
+        double ax = this.xs[a];
+        double ay = this.ys[a];
+        double bx = this.xs[v];
+        double by = this.ys[v];
+        double cx = this.xs[c];
+        double cy = this.ys[c];
+        BoundingBox box = new BoundingBox(
+                Math.min(ax, Math.min(bx, cx)), Math.min(ay, Math.min(by, cy)),
+                Math.max(ax, Math.max(bx, cx)), Math.max(ay, Math.max(by, cy))
+        );
+
+        boolean[] found = {false};
+        this.tree.search(box, 0, item -> {
+            int p = this.treeVertices[item];
+            if (found[0] || p == v || this.removed[p])
+                return;
+            double px = this.xs[p];
+            double py = this.ys[p];
+            if ((px == ax && py == ay) || (px == cx && py == cy))
+                return; // an edge starting from a shared vertex only touches it there
+            double d1 = (bx - ax) * (py - ay) - (by - ay) * (px - ax);
+            double d2 = (cx - bx) * (py - by) - (cy - by) * (px - bx);
+            double d3 = (ax - cx) * (py - cy) - (ay - cy) * (px - cx);
+            boolean negative = d1 < 0 || d2 < 0 || d3 < 0;
+            boolean positive = d1 > 0 || d2 > 0 || d3 > 0;
+            if (!(negative && positive))
+                found[0] = true;
+        });
+        return found[0];
+    }
+
+    private List<List<double[]>> regions(int count) {
+        // the vertices left, in their original order
+        List<List<double[]>> regions = new ArrayList<>(count);
+        for (int r = 0; r < count; r++)
+            regions.add(new ArrayList<>(this.alive[r]));
+        for (int v = 0; v < this.xs.length; v++) {
+            if (!this.removed[v])
+                regions.get(this.ring[v]).add(new double[]{this.xs[v], this.ys[v]});
+        }
+        return regions;
+    }
+
+    // heap
+
+    private void push(int v) {
+        // adds v, or moves it to its new weight
+        this.weight[v] = this.distance(v);
+        if (this.position[v] < 0) {
+            this.position[v] = this.heapSize;
+            this.heap[this.heapSize++] = v;
+        }
+        this.up(this.position[v]);
+        this.down(this.position[v]);
+    }
+
+    private int pop() {
+        int v = this.heap[0];
+        this.position[v] = -1;
+        int last = this.heap[--this.heapSize];
+        if (this.heapSize > 0) {
+            this.heap[0] = last;
+            this.position[last] = 0;
+            this.down(0);
+        }
+        return v;
+    }
+
+    private void up(int i) {
+        int v = this.heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >> 1;
+            int p = this.heap[parent];
+            if (this.weight[p] <= this.weight[v])
+                break;
+            this.heap[i] = p;
+            this.position[p] = i;
+            i = parent;
+        }
+        this.heap[i] = v;
+        this.position[v] = i;
+    }
+
+    private void down(int i) {
+        int v = this.heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= this.heapSize)
+                break;
+            if (child + 1 < this.heapSize && this.weight[this.heap[child + 1]] < this.weight[this.heap[child]])
+                child++;
+            int c = this.heap[child];
+            if (this.weight[c] >= this.weight[v])
+                break;
+            this.heap[i] = c;
+            this.position[c] = i;
+            i = child;
+        }
+        this.heap[i] = v;
+        this.position[v] = i;
+    }
+}
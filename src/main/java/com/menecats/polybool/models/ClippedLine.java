@@ -0,0 +1,70 @@
+package com.menecats.polybool.models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public final class ClippedLine {
+    private List<List<double[]>> inside;
+    private List<List<double[]>> outside;
+    private List<List<double[]>> boundary;
+
+    public ClippedLine() {
+        this(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+    }
+
+    public ClippedLine(List<List<double[]>> inside, List<List<double[]>> outside, List<List<double[]>> boundary) {
+        this.inside = inside;
+        this.outside = outside;
+        this.boundary = boundary;
+    }
+
+    public List<List<double[]>> getInside() {
+        return inside;
+    }
+
+    public void setInside(List<List<double[]>> inside) {
+        this.inside = inside;
+    }
+
+    public List<List<double[]>> getOutside() {
+        return outside;
+    }
+
+    public void setOutside(List<List<double[]>> outside) {
+        this.outside = outside;
+    }
+
+    public List<List<double[]>> getBoundary() {
+        return boundary;
+    }
+
+    public void setBoundary(List<List<double[]>> boundary) {
+        this.boundary = boundary;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "ClippedLine { inside: %s, outside: %s, boundary: %s }",
+                toString(inside),
+                toString(outside),
+                toString(boundary)
+        );
+    }
+
+    private static String toString(List<List<double[]>> lines) {
+        return "[" + lines
+                .stream()
+                .map(line -> "[" + line
+                        .stream()
+                        .map(point -> String.format(
+                                "[%s, %s]",
+                                point[0],
+                                point[1]
+                        ))
+                        .collect(Collectors.joining(", ")) + "]"
+                )
+                .collect(Collectors.joining(", ")) + "]";
+    }
+}
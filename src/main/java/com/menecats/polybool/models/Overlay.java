@@ -0,0 +1,47 @@
+package com.menecats.polybool.models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public final class Overlay {
+    private List<OverlayFace> faces;
+    private List<OverlayEdge> edges;
+
+    public Overlay() {
+        this(new ArrayList<>(), new ArrayList<>());
+    }
+
+    public Overlay(List<OverlayFace> faces, List<OverlayEdge> edges) {
+        this.faces = faces;
+        this.edges = edges;
+    }
+
+    public List<OverlayFace> getFaces() {
+        return faces;
+    }
+
+    public void setFaces(List<OverlayFace> faces) {
+        this.faces = faces;
+    }
+
+    public List<OverlayEdge> getEdges() {
+        return edges;
+    }
+
+    public void setEdges(List<OverlayEdge> edges) {
+        this.edges = edges;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "Overlay { faces: [\n\t%s\n], edges: %s }",
+                faces
+                        .stream()
+                        .map(OverlayFace::toString)
+                        .collect(Collectors.joining(",\n\t")),
+                edges.size()
+        );
+    }
+}
@@ -0,0 +1,62 @@
+package com.menecats.polybool.models;
+
+public final class OverlayEdge {
+    private double[] start;
+    private double[] end;
+    private long above; // inputs covering the area above the edge
+    private long below; // inputs covering the area below the edge
+
+    public OverlayEdge() {
+        this(null, null, 0, 0);
+    }
+
+    public OverlayEdge(double[] start, double[] end, long above, long below) {
+        this.start = start;
+        this.end = end;
+        this.above = above;
+        this.below = below;
+    }
+
+    public double[] getStart() {
+        return start;
+    }
+
+    public void setStart(double[] start) {
+        this.start = start;
+    }
+
+    public double[] getEnd() {
+        return end;
+    }
+
+    public void setEnd(double[] end) {
+        this.end = end;
+    }
+
+    public long getAbove() {
+        return above;
+    }
+
+    public void setAbove(long above) {
+        this.above = above;
+    }
+
+    public long getBelow() {
+        return below;
+    }
+
+    public void setBelow(long below) {
+        this.below = below;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "OverlayEdge { start: [%s, %s], end: [%s, %s], above: %s, below: %s }",
+                start[0], start[1],
+                end[0], end[1],
+                Long.toBinaryString(above),
+                Long.toBinaryString(below)
+        );
+    }
+}
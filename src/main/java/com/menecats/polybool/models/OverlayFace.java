@@ -0,0 +1,55 @@
+package com.menecats.polybool.models;
+
+public final class OverlayFace {
+    private long inputs; // bit i is set if the face is covered by input i, 0 when faces are grouped by count
+    private int count; // number of inputs covering the face
+    private Polygon polygon;
+
+    public OverlayFace() {
+        this(0, 0, new Polygon());
+    }
+
+    public OverlayFace(long inputs, int count, Polygon polygon) {
+        this.inputs = inputs;
+        this.count = count;
+        this.polygon = polygon;
+    }
+
+    public long getInputs() {
+        return inputs;
+    }
+
+    public void setInputs(long inputs) {
+        this.inputs = inputs;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public Polygon getPolygon() {
+        return polygon;
+    }
+
+    public void setPolygon(Polygon polygon) {
+        this.polygon = polygon;
+    }
+
+    public boolean isCoveredBy(int input) {
+        return (inputs & (1L << input)) != 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "OverlayFace { inputs: %s, count: %s, polygon: %s }",
+                Long.toBinaryString(inputs),
+                count,
+                polygon
+        );
+    }
+}
@@ -7,6 +7,10 @@ import java.util.stream.Collectors;
 public final class Polygon {
     private List<List<double[]>> regions;
     private boolean inverted;
+    // the points of the regions when the library built them clean (no self-intersections or
+    // overlaps), packed as x, y pairs, or null; the regions are only clean while they still match
+    private double[] cleanPoints;
+    private int[] cleanSizes;
 
     public Polygon() {
         this(new ArrayList<>());
@@ -17,8 +21,29 @@ public final class Polygon {
     }
 
     public Polygon(List<List<double[]>> regions, boolean inverted) {
+        this(regions, inverted, false);
+    }
+
+    public Polygon(List<List<double[]>> regions, boolean inverted, boolean clean) {
+        // `clean` is for the results of the library, which are built without crossings
         this.regions = regions;
         this.inverted = inverted;
+        if (clean && regions != null) {
+            int count = 0;
+            this.cleanSizes = new int[regions.size()];
+            for (int r = 0; r < regions.size(); r++) {
+                this.cleanSizes[r] = regions.get(r).size();
+                count += this.cleanSizes[r];
+            }
+            this.cleanPoints = new double[count * 2];
+            int i = 0;
+            for (List<double[]> region : regions) {
+                for (double[] pt : region) {
+                    this.cleanPoints[i++] = pt[0];
+                    this.cleanPoints[i++] = pt[1];
+                }
+            }
+        }
     }
 
     public List<List<double[]>> getRegions() {
@@ -27,6 +52,8 @@ public final class Polygon {
 
     public void setRegions(List<List<double[]>> regions) {
         this.regions = regions;
+        this.cleanPoints = null;
+        this.cleanSizes = null;
     }
 
     public boolean isInverted() {
@@ -37,6 +64,24 @@ public final class Polygon {
         this.inverted = inverted;
     }
 
+    public boolean isClean() {
+        // compares the regions with the points they were built with, so changing them in place,
+        // even a single coordinate, makes the polygon unclean again
+        if (this.cleanPoints == null || this.regions.size() != this.cleanSizes.length)
+            return false;
+        int i = 0;
+        for (int r = 0; r < this.cleanSizes.length; r++) {
+            List<double[]> region = this.regions.get(r);
+            if (region.size() != this.cleanSizes[r])
+                return false;
+            for (double[] pt : region) {
+                if (pt[0] != this.cleanPoints[i++] || pt[1] != this.cleanPoints[i++])
+                    return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public String toString() {
         return String.format(
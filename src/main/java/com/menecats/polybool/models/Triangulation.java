@@ -0,0 +1,48 @@
+package com.menecats.polybool.models;
+
+public final class Triangulation {
+    private double[] vertices; // x, y pairs
+    private int[] triangles; // three vertex indices for each triangle, counter-clockwise
+
+    public Triangulation() {
+        this(new double[0], new int[0]);
+    }
+
+    public Triangulation(double[] vertices, int[] triangles) {
+        this.vertices = vertices;
+        this.triangles = triangles;
+    }
+
+    public double[] getVertices() {
+        return vertices;
+    }
+
+    public void setVertices(double[] vertices) {
+        this.vertices = vertices;
+    }
+
+    public int[] getTriangles() {
+        return triangles;
+    }
+
+    public void setTriangles(int[] triangles) {
+        this.triangles = triangles;
+    }
+
+    public int getVertexCount() {
+        return vertices.length / 2;
+    }
+
+    public int getTriangleCount() {
+        return triangles.length / 3;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "Triangulation { vertices: %s, triangles: %s }",
+                getVertexCount(),
+                getTriangleCount()
+        );
+    }
+}
@@ -0,0 +1,38 @@
+package com.menecats.polybool.internal;
+
+public final class BatchKernels {
+    // the Java 17 version of the kernels, in META-INF/versions/17 of the jar
+    // the Vector API is an incubator module, used only when the application is started with
+    // --add-modules jdk.incubator.vector, and the plain loops are used otherwise
+    private static final boolean VECTORIZED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private BatchKernels() {
+    }
+
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    public static void range(double[] a, double[] b, int count, double[] out, int offset) {
+        if (VECTORIZED)
+            VectorKernels.range(a, b, count, out, offset);
+        else
+            ScalarKernels.range(a, b, count, out, offset);
+    }
+
+    public static void pointsAboveOrOnLine(double[] px, double[] py, double[] ax, double[] ay, double[] bx, double[] by,
+                                           int count, double eps, boolean[] out) {
+        if (VECTORIZED)
+            VectorKernels.pointsAboveOrOnLine(px, py, ax, ay, bx, by, count, eps, out);
+        else
+            ScalarKernels.pointsAboveOrOnLine(px, py, ax, ay, bx, by, count, eps, out);
+    }
+
+    public static void flipInsideRegion(double[] region, int points, double[] xs, double[] ys, int count, double eps,
+                                        boolean[] inside) {
+        if (VECTORIZED)
+            VectorKernels.flipInsideRegion(region, points, xs, ys, count, eps, inside);
+        else
+            ScalarKernels.flipInsideRegion(region, points, xs, ys, 0, count, eps, inside);
+    }
+}
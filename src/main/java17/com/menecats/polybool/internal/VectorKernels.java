@@ -0,0 +1,88 @@
+package com.menecats.polybool.internal;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+final class VectorKernels {
+    // the kernels with one point in every lane, and the same operations in the same order as
+    // ScalarKernels (no fused multiply-add), so the results are the same
+    // the points left after the last full vector go through the plain loops
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private VectorKernels() {
+    }
+
+    static void range(double[] a, double[] b, int count, double[] out, int offset) {
+        int bound = SPECIES.loopBound(count);
+        DoubleVector min = DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY);
+        DoubleVector max = DoubleVector.broadcast(SPECIES, Double.NEGATIVE_INFINITY);
+        for (int i = 0; i < bound; i += SPECIES.length()) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, i);
+            DoubleVector vb = DoubleVector.fromArray(SPECIES, b, i);
+            min = min.min(va).min(vb);
+            max = max.max(va).max(vb);
+        }
+        double low = min.reduceLanes(VectorOperators.MIN);
+        double high = max.reduceLanes(VectorOperators.MAX);
+        for (int i = bound; i < count; i++) {
+            low = Math.min(low, Math.min(a[i], b[i]));
+            high = Math.max(high, Math.max(a[i], b[i]));
+        }
+        out[offset] = low;
+        out[offset + 2] = high;
+    }
+
+    static void pointsAboveOrOnLine(double[] px, double[] py, double[] ax, double[] ay, double[] bx, double[] by,
+                                    int count, double eps, boolean[] out) {
+        int bound = SPECIES.loopBound(count);
+        for (int i = 0; i < bound; i += SPECIES.length()) {
+            DoubleVector vax = DoubleVector.fromArray(SPECIES, ax, i);
+            DoubleVector vay = DoubleVector.fromArray(SPECIES, ay, i);
+            DoubleVector cross = DoubleVector.fromArray(SPECIES, bx, i).sub(vax)
+                    .mul(DoubleVector.fromArray(SPECIES, py, i).sub(vay))
+                    .sub(DoubleVector.fromArray(SPECIES, by, i).sub(vay)
+                            .mul(DoubleVector.fromArray(SPECIES, px, i).sub(vax)));
+            cross.compare(VectorOperators.GE, -eps).intoArray(out, i);
+        }
+        for (int i = bound; i < count; i++)
+            out[i] = (bx[i] - ax[i]) * (py[i] - ay[i]) - (by[i] - ay[i]) * (px[i] - ax[i]) >= -eps;
+    }
+
+    static void flipInsideRegion(double[] region, int points, double[] xs, double[] ys, int count, double eps,
+                                 boolean[] inside) {
+        int bound = SPECIES.loopBound(count);
+        for (int i = 0; i < bound; i += SPECIES.length()) {
+            DoubleVector x = DoubleVector.fromArray(SPECIES, xs, i);
+            DoubleVector y = DoubleVector.fromArray(SPECIES, ys, i);
+            VectorMask<Double> flip = SPECIES.maskAll(false);
+            double last_x = region[points * 2 - 2];
+            double last_y = region[points * 2 - 1];
+            VectorMask<Double> lastAbove = DoubleVector.broadcast(SPECIES, last_y).sub(y).compare(VectorOperators.GT, eps);
+            for (int p = 0; p < points; p++) {
+                double curr_x = region[p * 2];
+                double curr_y = region[p * 2 + 1];
+                VectorMask<Double> currAbove = DoubleVector.broadcast(SPECIES, curr_y).sub(y).compare(VectorOperators.GT, eps);
+                VectorMask<Double> crossing = xor(currAbove, lastAbove);
+                if (crossing.anyTrue()) {
+                    VectorMask<Double> right = y.sub(curr_y).mul(last_x - curr_x).div(last_y - curr_y)
+                            .add(curr_x).sub(x)
+                            .compare(VectorOperators.GT, eps);
+                    VectorMask<Double> flips = crossing.and(right);
+                    flip = xor(flip, flips);
+                }
+                last_x = curr_x;
+                last_y = curr_y;
+                lastAbove = currAbove;
+            }
+            xor(VectorMask.fromArray(SPECIES, inside, i), flip).intoArray(inside, i);
+        }
+        ScalarKernels.flipInsideRegion(region, points, xs, ys, bound, count, eps, inside);
+    }
+
+    private static VectorMask<Double> xor(VectorMask<Double> a, VectorMask<Double> b) {
+        // not in the masks of the Java 17 API
+        return a.and(b.not()).or(b.and(a.not()));
+    }
+}
@@ -0,0 +1,823 @@
+package com.menecats.polybool;
+
+import com.menecats.polybool.models.ClippedLine;
+import com.menecats.polybool.models.Overlay;
+import com.menecats.polybool.models.OverlayFace;
+import com.menecats.polybool.models.Polygon;
+import com.menecats.polybool.models.Triangulation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static com.menecats.polybool.helpers.PolyBoolHelper.*;
+
+public class FeatureCheck {
+    // every shortcut of the library against the plain segments, combine, select and chain steps it
+    // stands for, on small random polygons; run by `./gradlew check`, which fails when any of them
+    // gives a different answer
+    private static final List<String> failures = new ArrayList<>();
+
+    public static void main(String[] args) throws IOException {
+        clipToRect();
+        clipToTiles();
+        join();
+        clipLines();
+        select();
+        polygonSink();
+        segmentsCache();
+        operateAll();
+        overlay();
+        polygonStore();
+        monotoneChains();
+        convex();
+        triangulate();
+        rasterize();
+        geoJSON();
+        expressions();
+        slowOperations();
+        pointsInside();
+        simplifyStage();
+
+        if (!failures.isEmpty()) {
+            System.err.println("Differences:");
+            for (String failure : failures)
+                System.err.println("  " + failure);
+            System.exit(1);
+        }
+        System.out.println("No differences");
+    }
+
+    private static void clipToRect() {
+        // the clipped regions must be as clean as the ones of the intersection, also for
+        // inverted polygons and for polygons built by the library
+        Random random = new Random(39);
+        for (int n = 0; n < 300; n++) {
+            Polygon poly = randomPolygon(random, n);
+            double minX = random.nextDouble() * 8 - 1;
+            double minY = random.nextDouble() * 8 - 1;
+            double maxX = minX + 0.5 + random.nextDouble() * 6;
+            double maxY = minY + 0.5 + random.nextDouble() * 6;
+            Polygon rect = polygon(region(point(minX, minY), point(maxX, minY), point(maxX, maxY), point(minX, maxY)));
+
+            Polygon expected = PolyBool.intersect(epsilon(), poly, rect);
+            Polygon clipped = PolyBool.clipToRect(epsilon(), poly, minX, minY, maxX, maxY);
+            same("clip to rect #" + n, expected, clipped);
+        }
+
+        // the hole of an inverted ring covers the whole rectangle
+        Polygon inverted = polygon(true, region(point(0, 0), point(10, 0), point(10, -5), point(0, -5)));
+        check("clip to rect: inside the hole of an inverted ring",
+                PolyBool.clipToRect(epsilon(), inverted, 3, -2, 5, 0).getRegions().isEmpty());
+    }
+
+    private static void clipToTiles() {
+        // every tile clipped from its parent must be the original polygon clipped to the tile,
+        // and the tiles left out must be empty, such as the ones inside a hole
+        Random random = new Random(40);
+        for (int n = 0; n < 20; n++) {
+            Polygon poly = randomPolygon(random, n);
+            Map<String, Polygon> tiles = new HashMap<>();
+            PolyBool.clipToTiles(epsilon(), poly, 0, 0, 10, 10, 0, 3, 0.1,
+                    (zoom, x, y, tile) -> tiles.put(zoom + "/" + x + "/" + y, tile));
+
+            for (int zoom = 0; zoom <= 3; zoom++) {
+                double count = 1L << zoom;
+                for (int x = 0; x < count; x++) {
+                    for (int y = 0; y < count; y++) {
+                        String name = "clip to tiles #" + n + ", tile " + zoom + "/" + x + "/" + y;
+                        double size = 10 / count;
+                        Polygon expected = PolyBool.clipToRect(epsilon(), poly,
+                                10 * x / count - size * 0.1, 10 * y / count - size * 0.1,
+                                10 * (x + 1) / count + size * 0.1, 10 * (y + 1) / count + size * 0.1);
+                        Polygon tile = tiles.get(zoom + "/" + x + "/" + y);
+                        if (tile == null)
+                            check(name + ": left out", expected.getRegions().isEmpty());
+                        else
+                            same(name, expected, tile);
+                    }
+                }
+            }
+        }
+
+        // the tiles of the rectangle inside the hole aren't reported
+        Polygon frame = polygon(
+                region(point(0, 0), point(10, 0), point(10, 10), point(0, 10)),
+                region(point(1, 1), point(1, 9), point(9, 9), point(9, 1))
+        );
+        List<String> reported = new ArrayList<>();
+        PolyBool.clipToTiles(epsilon(), frame, 0, 0, 10, 10, 2, 2, 0,
+                (zoom, x, y, tile) -> reported.add(x + "/" + y));
+        check("clip to tiles: inside a hole", reported.size() == 12);
+    }
+
+    private static void join() {
+        // the pairs of a join against every pair evaluated on its own, with the right polygons
+        // in a cache too small for them, and without a cache
+        Random random = new Random(34);
+        List<Polygon> left = new ArrayList<>();
+        List<Polygon> right = new ArrayList<>();
+        for (int n = 0; n < 24; n++) {
+            Polygon poly = shifted(randomPolygon(random, n), random.nextDouble() * 30, random.nextDouble() * 30);
+            (n < 12 ? left : right).add(poly);
+        }
+
+        for (SegmentsCache cache : new SegmentsCache[]{null, new SegmentsCache(2000)}) {
+            Epsilon eps = epsilon();
+            eps.options(PolyBoolOptions.DEFAULT.withSegmentsCache(cache));
+            String name = "join, " + (cache == null ? "no cache" : "small cache");
+
+            Map<String, Polygon> pairs = new HashMap<>();
+            PolyBool.join(eps, left, right, (i, j, polygon) -> pairs.put(i + "/" + j, polygon));
+            Map<String, Polygon> related = new HashMap<>();
+            PolyBool.join(eps, left, right, PolyBool.Relation.CONTAINS, (i, j, polygon) -> related.put(i + "/" + j, polygon));
+
+            for (int i = 0; i < left.size(); i++) {
+                for (int j = 0; j < right.size(); j++) {
+                    String pair = name + ", pair " + i + "/" + j;
+                    Polygon expected = PolyBool.intersect(epsilon(), left.get(i), right.get(j));
+                    Polygon actual = pairs.get(i + "/" + j);
+                    if (actual == null)
+                        check(pair + ": left out", expected.getRegions().isEmpty() && !expected.isInverted());
+                    else
+                        same(pair, expected, actual);
+                    check(pair + ": contains", related.containsKey(i + "/" + j) ==
+                            PolyBool.contains(epsilon(), left.get(i), right.get(j)));
+                }
+            }
+        }
+    }
+
+    private static void clipLines() {
+        // every piece of a clipped line against the point-in-polygon test of the regions chained
+        // from the plain pipeline, at the middle of each of its edges
+        Random random = new Random(27);
+        for (int n = 0; n < 100; n++) {
+            Polygon poly = randomPolygon(random, n);
+            Polygon clean = plain(poly, new Polygon(), PolyBool::selectUnion);
+            List<List<double[]>> lines = new ArrayList<>();
+            for (int k = 0; k < 3; k++) {
+                List<double[]> line = new ArrayList<>();
+                int points = 2 + random.nextInt(5);
+                for (int i = 0; i < points; i++)
+                    line.add(point(random.nextDouble() * 12 - 1, random.nextDouble() * 12 - 1));
+                lines.add(line);
+            }
+
+            List<ClippedLine> clipped = PolyBool.clipLines(epsilon(), poly, lines);
+            for (int k = 0; k < lines.size(); k++) {
+                String name = "clip lines #" + n + ", line " + k;
+                ClippedLine pieces = clipped.get(k);
+                double total = length(pieces.getInside()) + length(pieces.getOutside()) + length(pieces.getBoundary());
+                check(name + ": length", Math.abs(total - length(Collections.singletonList(lines.get(k)))) < 1e-9);
+                check(name + ": inside", sides(clean, pieces.getInside(), true));
+                check(name + ": outside", sides(clean, pieces.getOutside(), false));
+                check(name + ": boundary", sides(clean, pieces.getBoundary(), null));
+            }
+        }
+    }
+
+    private static void select() {
+        // the five operations selected in one pass, against each one selected on its own
+        Random random = new Random(29);
+        Map<PolyBool.Operation, Function<PolyBool.Combined, PolyBool.Segments>> selectors = new EnumMap<>(PolyBool.Operation.class);
+        selectors.put(PolyBool.Operation.UNION, PolyBool::selectUnion);
+        selectors.put(PolyBool.Operation.INTERSECT, PolyBool::selectIntersect);
+        selectors.put(PolyBool.Operation.DIFFERENCE, PolyBool::selectDifference);
+        selectors.put(PolyBool.Operation.DIFFERENCE_REV, PolyBool::selectDifferenceRev);
+        selectors.put(PolyBool.Operation.XOR, PolyBool::selectXor);
+
+        for (int n = 0; n < 100; n++) {
+            Polygon poly1 = randomPolygon(random, n);
+            Polygon poly2 = randomPolygon(random, n / 2);
+            Epsilon eps = epsilon();
+            PolyBool.Combined combined = PolyBool.combine(eps, PolyBool.segments(eps, poly1), PolyBool.segments(eps, poly2));
+            Map<PolyBool.Operation, PolyBool.Segments> selected = PolyBool.select(combined, PolyBool.Operation.values());
+            for (PolyBool.Operation operation : PolyBool.Operation.values()) {
+                String name = "select #" + n + ", " + operation;
+                PolyBool.Segments segments = selected.get(operation);
+                same(name, plain(poly1, poly2, selectors.get(operation)), PolyBool.polygon(eps, segments));
+            }
+        }
+    }
+
+    private static void polygonSink() {
+        // the regions streamed to a sink, against the regions chained into a polygon
+        Random random = new Random(30);
+        for (int n = 0; n < 100; n++) {
+            Polygon poly1 = randomPolygon(random, n);
+            Polygon poly2 = randomPolygon(random, n / 2);
+            Epsilon eps = epsilon();
+            PolyBool.Segments segments = PolyBool.selectUnion(PolyBool.combine(
+                    eps, PolyBool.segments(eps, poly1), PolyBool.segments(eps, poly2)
+            ));
+
+            List<List<double[]>> regions = new ArrayList<>();
+            boolean[] inverted = new boolean[1];
+            boolean chained = PolyBool.polygon(eps, segments, new PolygonSink() {
+                @Override
+                public void beginPolygon(boolean polygonInverted) {
+                    inverted[0] = polygonInverted;
+                }
+
+                @Override
+                public void beginRing() {
+                    regions.add(new ArrayList<>());
+                }
+
+                @Override
+                public void vertex(double x, double y) {
+                    regions.get(regions.size() - 1).add(point(x, y));
+                }
+
+                @Override
+                public void endRing() {
+                }
+            });
+
+            String name = "polygon sink #" + n;
+            Polygon expected = PolyBool.polygon(eps, segments);
+            check(name + ": chained", chained);
+            check(name + ": inverted", inverted[0] == expected.isInverted());
+            check(name + ": same regions", regions.size() == expected.getRegions().size() &&
+                    IntStream.range(0, regions.size()).allMatch(r -> samePoints(regions.get(r), expected.getRegions().get(r))));
+        }
+    }
+
+    private static void segmentsCache() {
+        // the operations with their segments from a cache, large and too small for them, against
+        // the plain pipeline, every polygon being used twice so the second use is a hit
+        for (long maxWeight : new long[]{1 << 20, 1500}) {
+            Random random = new Random(31);
+            SegmentsCache cache = new SegmentsCache(maxWeight);
+            Epsilon eps = epsilon();
+            eps.options(PolyBoolOptions.DEFAULT.withSegmentsCache(cache));
+            List<Polygon> polygons = new ArrayList<>();
+            for (int n = 0; n < 20; n++)
+                polygons.add(randomPolygon(random, n));
+
+            for (int n = 0; n < 40; n++) {
+                Polygon poly1 = polygons.get(n % 20);
+                Polygon poly2 = polygons.get((n * 7 + 3) % 20);
+                String name = "segments cache of " + maxWeight + " #" + n;
+                same(name + ", union", plain(poly1, poly2, PolyBool::selectUnion), PolyBool.union(eps, poly1, poly2));
+                same(name + ", difference", plain(poly1, poly2, PolyBool::selectDifference), PolyBool.difference(eps, poly1, poly2));
+            }
+            SegmentsCache.Stats stats = cache.stats();
+            check("segments cache of " + maxWeight + ": hits", stats.getHits() > 0);
+            check("segments cache of " + maxWeight + ": weight", stats.getWeight() <= maxWeight);
+        }
+    }
+
+    private static void operateAll() {
+        // the n-ary operations in a single sweep, against the plain pipeline folded over the
+        // polygons one pair at a time
+        Random random = new Random(32);
+        for (int n = 0; n < 40; n++) {
+            List<Polygon> polygons = new ArrayList<>();
+            for (int k = 0; k < 4; k++)
+                polygons.add(randomPolygon(random, n + k));
+            String name = "operate all #" + n;
+
+            Polygon union = polygons.get(0);
+            Polygon intersection = polygons.get(0);
+            Polygon difference = polygons.get(0);
+            for (Polygon poly : polygons.subList(1, polygons.size())) {
+                union = plain(union, poly, PolyBool::selectUnion);
+                intersection = plain(intersection, poly, PolyBool::selectIntersect);
+                difference = plain(difference, poly, PolyBool::selectDifference);
+            }
+            // covered by two polygons or more: the union of the intersections of every pair
+            Polygon atLeastTwo = new Polygon();
+            for (int i = 0; i < polygons.size(); i++) {
+                for (int j = i + 1; j < polygons.size(); j++)
+                    atLeastTwo = plain(atLeastTwo, plain(polygons.get(i), polygons.get(j), PolyBool::selectIntersect), PolyBool::selectUnion);
+            }
+
+            same(name + ", union", union, PolyBool.unionAll(epsilon(), polygons));
+            same(name + ", intersection", intersection, PolyBool.intersectAll(epsilon(), polygons));
+            same(name + ", difference", difference, PolyBool.differenceAll(epsilon(), polygons));
+            same(name + ", at least two", atLeastTwo, PolyBool.atLeast(epsilon(), polygons, 2));
+        }
+    }
+
+    private static void overlay() {
+        // the faces covered by every input, merged back, against the input cleaned up by the
+        // plain pipeline; the faces of the coverage covered twice or more, against the union of
+        // the intersections of every pair
+        Random random = new Random(33);
+        for (int n = 0; n < 30; n++) {
+            List<Polygon> polygons = new ArrayList<>();
+            for (int k = 0; k < 3; k++)
+                polygons.add(randomPolygon(random, n + k));
+            String name = "overlay #" + n;
+
+            Overlay overlay = PolyBool.overlay(epsilon(), polygons);
+            for (int k = 0; k < polygons.size(); k++) {
+                Polygon covered = new Polygon();
+                for (OverlayFace face : overlay.getFaces()) {
+                    if (face.isCoveredBy(k))
+                        covered = plain(covered, face.getPolygon(), PolyBool::selectUnion);
+                }
+                same(name + ", input " + k, plain(polygons.get(k), new Polygon(), PolyBool::selectUnion), covered);
+            }
+
+            Polygon atLeastTwo = new Polygon();
+            for (int i = 0; i < polygons.size(); i++) {
+                for (int j = i + 1; j < polygons.size(); j++)
+                    atLeastTwo = plain(atLeastTwo, plain(polygons.get(i), polygons.get(j), PolyBool::selectIntersect), PolyBool::selectUnion);
+            }
+            Polygon coveredTwice = new Polygon();
+            for (OverlayFace face : PolyBool.coverage(epsilon(), polygons).getFaces()) {
+                if (face.getCount() >= 2)
+                    coveredTwice = plain(coveredTwice, face.getPolygon(), PolyBool::selectUnion);
+            }
+            same(name + ", covered twice", atLeastTwo, coveredTwice);
+        }
+    }
+
+    private static void polygonStore() throws IOException {
+        // the polygons read back from a store file, and the ones found by its queries, against
+        // the polygons written to it and a scan of all of their boxes
+        Random random = new Random(35);
+        List<Polygon> polygons = new ArrayList<>();
+        for (int n = 0; n < 60; n++)
+            polygons.add(shifted(randomPolygon(random, n), random.nextDouble() * 30, random.nextDouble() * 30));
+
+        Path path = Files.createTempFile("polybool", ".store");
+        try {
+            PolygonStore.write(path, polygons);
+            try (PolygonStore store = PolygonStore.open(path)) {
+                check("polygon store: size", store.size() == polygons.size());
+                for (int i = 0; i < polygons.size(); i++) {
+                    String name = "polygon store, polygon " + i;
+                    Polygon written = polygons.get(i);
+                    Polygon read = store.get(i);
+                    check(name + ": inverted", read.isInverted() == written.isInverted());
+                    check(name + ": points", read.getRegions().size() == written.getRegions().size() &&
+                            IntStream.range(0, read.getRegions().size())
+                                    .allMatch(r -> samePoints(read.getRegions().get(r), written.getRegions().get(r))));
+                    Polygon other = polygons.get((i + 1) % polygons.size());
+                    same(name + ", union", plain(written, other, PolyBool::selectUnion), PolyBool.union(epsilon(), read, other));
+                }
+
+                for (int q = 0; q < 30; q++) {
+                    double minX = random.nextDouble() * 40;
+                    double minY = random.nextDouble() * 40;
+                    double maxX = minX + random.nextDouble() * 10;
+                    double maxY = minY + random.nextDouble() * 10;
+                    Set<Integer> expected = new HashSet<>();
+                    for (int i = 0; i < polygons.size(); i++) {
+                        double[] box = bounds(polygons.get(i));
+                        if (polygons.get(i).isInverted() || (box[0] <= maxX && minX <= box[2] && box[1] <= maxY && minY <= box[3]))
+                            expected.add(i);
+                    }
+                    Set<Integer> found = new HashSet<>();
+                    store.search(minX, minY, maxX, maxY, found::add);
+                    check("polygon store, query " + q, found.equals(expected) &&
+                            store.query(minX, minY, maxX, maxY).size() == expected.size());
+                }
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static void monotoneChains() {
+        // the operations swept with monotone chains, against the plain pipeline without them,
+        // on rings with many edges, which give long chains
+        Random random = new Random(36);
+        Epsilon eps = epsilon();
+        eps.options(PolyBoolOptions.DEFAULT.withMonotoneChains(true));
+        for (int n = 0; n < 60; n++) {
+            Polygon poly1 = n % 2 == 0 ? randomPolygon(random, n) : star(random, 5, 5, 40);
+            Polygon poly2 = star(random, 3 + random.nextDouble() * 4, 3 + random.nextDouble() * 4, 60);
+            String name = "monotone chains #" + n;
+            same(name + ", union", plain(poly1, poly2, PolyBool::selectUnion), PolyBool.union(eps, poly1, poly2));
+            same(name + ", intersection", plain(poly1, poly2, PolyBool::selectIntersect), PolyBool.intersect(eps, poly1, poly2));
+            same(name + ", xor", plain(poly1, poly2, PolyBool::selectXor), PolyBool.xor(eps, poly1, poly2));
+        }
+    }
+
+    private static void convex() {
+        // the operations on two convex rings, which take the convex fast path, against the plain
+        // pipeline, also for rings sharing a vertex or a whole side
+        Random random = new Random(38);
+        for (int n = 0; n < 200; n++) {
+            Polygon poly1 = convexRing(random, 4 + random.nextDouble() * 2, 4 + random.nextDouble() * 2);
+            Polygon poly2 = n % 4 == 0 ? poly1 : convexRing(random, 4 + random.nextDouble() * 2, 4 + random.nextDouble() * 2);
+            if (n % 4 == 1) {
+                // a neighbour across the first side of the first ring
+                List<double[]> ring1 = poly1.getRegions().get(0);
+                double[] a = ring1.get(0);
+                double[] b = ring1.get(1);
+                poly2 = polygon(region(b, a, point((a[0] + b[0]) / 2 + (a[1] - b[1]), (a[1] + b[1]) / 2 + (b[0] - a[0]))));
+            }
+            String name = "convex #" + n;
+            Epsilon eps = epsilon();
+            same(name + ", union", plain(poly1, poly2, PolyBool::selectUnion), PolyBool.union(eps, poly1, poly2));
+            same(name + ", intersection", plain(poly1, poly2, PolyBool::selectIntersect), PolyBool.intersect(eps, poly1, poly2));
+            same(name + ", difference", plain(poly1, poly2, PolyBool::selectDifference), PolyBool.difference(eps, poly1, poly2));
+            same(name + ", difference rev", plain(poly1, poly2, PolyBool::selectDifferenceRev), PolyBool.differenceRev(eps, poly1, poly2));
+            same(name + ", xor", plain(poly1, poly2, PolyBool::selectXor), PolyBool.xor(eps, poly1, poly2));
+        }
+    }
+
+    private static void triangulate() {
+        // the triangles put back together, against the polygon cleaned up by the plain pipeline,
+        // and their areas, which add up to its area when none of them overlap
+        Random random = new Random(41);
+        for (int n = 0; n < 60; n++) {
+            Polygon poly = randomPolygon(random, n * 2); // never inverted
+            Polygon clean = plain(poly, new Polygon(), PolyBool::selectUnion);
+            Triangulation triangulation = PolyBool.triangulate(epsilon(), poly);
+            double[] v = triangulation.getVertices();
+            int[] t = triangulation.getTriangles();
+
+            String name = "triangulate #" + n;
+            Polygon triangles = new Polygon();
+            double area = 0;
+            boolean counterClockwise = true;
+            for (int i = 0; i < t.length; i += 3) {
+                double[] a = point(v[t[i] * 2], v[t[i] * 2 + 1]);
+                double[] b = point(v[t[i + 1] * 2], v[t[i + 1] * 2 + 1]);
+                double[] c = point(v[t[i + 2] * 2], v[t[i + 2] * 2 + 1]);
+                double twice = (b[0] - a[0]) * (c[1] - a[1]) - (b[1] - a[1]) * (c[0] - a[0]);
+                counterClockwise &= twice > 0;
+                area += twice / 2;
+                triangles = plain(triangles, polygon(region(a, b, c)), PolyBool::selectUnion);
+            }
+            check(name + ": counter-clockwise", counterClockwise);
+            check(name + ": area", Math.abs(area - PolyBool.area(PolyBool.segments(epsilon(), clean))) < 1e-7);
+            // the triangles only share whole sides and vertices, so merged back they cover the
+            // same area as the polygon
+            check(name + ": merged back", PolyBool.area(PolyBool.selectXor(PolyBool.combine(epsilon(),
+                    PolyBool.segments(epsilon(), clean), PolyBool.segments(epsilon(), triangles)))) < 1e-7);
+        }
+    }
+
+    private static void rasterize() {
+        // the cells of a grid against the polygon cleaned up by the plain pipeline: without
+        // anti-aliasing, whether the center of every cell is inside it, and with, the area of
+        // its intersection with the cell
+        Random random = new Random(42);
+        int size = 12;
+        for (int n = 0; n < 20; n++) {
+            Polygon poly = randomPolygon(random, n);
+            Polygon clean = plain(poly, new Polygon(), PolyBool::selectUnion);
+            PolyBool.Segments segments = PolyBool.segments(epsilon(), clean);
+            float[] centers = new float[size * size];
+            float[] coverage = new float[size * size];
+            PolyBool.rasterize(segments, -1, -1, 11, 11, size, size, false, centers);
+            PolyBool.rasterize(segments, -1, -1, 11, 11, size, size, true, coverage);
+
+            String name = "rasterize #" + n;
+            boolean sameCenters = true;
+            boolean sameCoverage = true;
+            for (int row = 0; row < size; row++) {
+                for (int column = 0; column < size; column++) {
+                    double x = -1 + column + 0.5;
+                    double y = -1 + row + 0.5;
+                    if (distance(clean, x, y) > 1e-9)
+                        sameCenters &= (centers[row * size + column] == 1) == inside(clean, x, y);
+
+                    Polygon cell = polygon(region(point(x - 0.5, y - 0.5), point(x + 0.5, y - 0.5), point(x + 0.5, y + 0.5), point(x - 0.5, y + 0.5)));
+                    double covered = PolyBool.area(PolyBool.segments(epsilon(), plain(clean, cell, PolyBool::selectIntersect)));
+                    sameCoverage &= Math.abs(coverage[row * size + column] - covered) < 1e-4;
+                }
+            }
+            check(name + ": centers", sameCenters);
+            check(name + ": coverage", sameCoverage);
+        }
+    }
+
+    private static void geoJSON() {
+        // the GeoJSON of an operation result, exported without cleaning it again, against the
+        // GeoJSON of a copy of it, which is cleaned first, and of a result changed in place
+        Random random = new Random(43);
+        for (int n = 0; n < 60; n++) {
+            Polygon result = plain(randomPolygon(random, n * 2), randomPolygon(random, n * 2 + 2), PolyBool::selectUnion);
+            String name = "geojson #" + n;
+            Polygon exported = PolyBool.polygonFromGeoJSON(epsilon(), PolyBool.polygonToGeoJSON(epsilon(), result));
+            Polygon copied = PolyBool.polygonFromGeoJSON(epsilon(), PolyBool.polygonToGeoJSON(epsilon(), copy(result)));
+            same(name, copied, exported);
+
+            if (result.getRegions().isEmpty())
+                continue;
+            double[] moved = result.getRegions().get(0).get(0);
+            moved[0] += 3; // may now cross the other edges
+            // both go through the same cleaning, so they give the same points
+            Polygon fresh = PolyBool.polygonFromGeoJSON(epsilon(), PolyBool.polygonToGeoJSON(epsilon(), copy(result)));
+            Polygon stale = PolyBool.polygonFromGeoJSON(epsilon(), PolyBool.polygonToGeoJSON(epsilon(), result));
+            check(name + ", changed in place", fresh.getRegions().size() == stale.getRegions().size() &&
+                    IntStream.range(0, fresh.getRegions().size())
+                            .allMatch(r -> samePoints(fresh.getRegions().get(r), stale.getRegions().get(r))));
+        }
+    }
+
+    private static void expressions() {
+        // expression trees, evaluated by the planner, against the plain pipeline run bottom-up
+        Random random = new Random(44);
+        for (int n = 0; n < 40; n++) {
+            Polygon a = randomPolygon(random, n);
+            Polygon b = randomPolygon(random, n + 1);
+            Polygon c = shifted(randomPolygon(random, n + 2), 20, 0); // apart from the others, unless inverted
+            Polygon d = randomPolygon(random, n + 3);
+            String name = "expressions #" + n;
+
+            // (a | b | c) - (d & (a ^ b))
+            Expression expression = Expression.difference(
+                    Expression.union(Expression.of(a), Expression.of(b), Expression.of(c)),
+                    Expression.intersect(Expression.of(d), Expression.xor(Expression.of(a), Expression.of(b)))
+            );
+            Polygon expected = plain(
+                    plain(plain(a, b, PolyBool::selectUnion), c, PolyBool::selectUnion),
+                    plain(d, plain(a, b, PolyBool::selectXor), PolyBool::selectIntersect),
+                    PolyBool::selectDifference
+            );
+            same(name, expected, PolyBool.evaluate(epsilon(), expression));
+            same(name + ", segments", expected, PolyBool.polygon(epsilon(), PolyBool.evaluateSegments(epsilon(), expression)));
+
+            // (a & b & d) ^ c, with the segments of a given directly
+            Expression mixed = Expression.xor(
+                    Expression.intersect(Expression.of(PolyBool.segments(epsilon(), a)), Expression.of(b), Expression.of(d)),
+                    Expression.of(c)
+            );
+            same(name + ", mixed", plain(plain(plain(a, b, PolyBool::selectIntersect), d, PolyBool::selectIntersect), c, PolyBool::selectXor),
+                    PolyBool.evaluate(epsilon(), mixed));
+        }
+    }
+
+    private static void slowOperations() throws IOException {
+        // the plain pipeline with every sweep recorded, against the same pipeline without the
+        // recorder, and the recordings read back and replayed
+        Random random = new Random(47);
+        Path directory = Files.createTempDirectory("polybool");
+        try {
+            for (int n = 0; n < 10; n++) {
+                Polygon poly1 = randomPolygon(random, n);
+                Polygon poly2 = randomPolygon(random, n + 1);
+                SlowOperationRecorder recorder = new SlowOperationRecorder(directory.resolve("run" + n), 0, 0);
+                Epsilon eps = epsilon();
+                eps.options(PolyBoolOptions.DEFAULT.withSlowOperationRecorder(recorder));
+                Polygon recorded = PolyBool.polygon(eps, PolyBool.selectUnion(PolyBool.combine(
+                        eps, PolyBool.segments(eps, poly1), PolyBool.segments(eps, poly2)
+                )));
+
+                String name = "slow operations #" + n;
+                same(name, plain(poly1, poly2, PolyBool::selectUnion), recorded);
+                check(name + ": recorded", recorder.getRecorded() == 3 && recorder.getFailures() == 0);
+
+                List<Path> files = new ArrayList<>();
+                try (Stream<Path> list = Files.list(directory.resolve("run" + n))) {
+                    list.sorted().forEach(files::add);
+                }
+                Recording.Operation[] operations = {Recording.Operation.SEGMENTS, Recording.Operation.SEGMENTS, Recording.Operation.COMBINE};
+                for (int k = 0; k < files.size() && k < operations.length; k++) {
+                    Recording recording = Recording.read(files.get(k));
+                    ByteArrayOutputStream written = new ByteArrayOutputStream();
+                    recording.write(written);
+                    check(name + ", recording " + k + ": operation", recording.getOperation() == operations[k]);
+                    check(name + ", recording " + k + ": same bytes", Arrays.equals(Files.readAllBytes(files.get(k)), written.toByteArray()));
+                    check(name + ", recording " + k + ": epsilon", recording.getEpsilon().epsilon() == eps.epsilon());
+                    recording.replay();
+                    recording.replay(PolyBoolOptions.DEFAULT.withMonotoneChains(true));
+                }
+            }
+        } finally {
+            try (Stream<Path> walk = Files.walk(directory)) {
+                walk.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static void pointsInside() {
+        // points tagged in batches (vectorized when the Vector API is there), against the regions
+        // chained from the plain pipeline, with points on the boundary left out; the counts are
+        // odd, so the batches end with a partial vector
+        Random random = new Random(49);
+        for (int n = 0; n < 60; n++) {
+            Polygon poly = randomPolygon(random, n);
+            Polygon clean = plain(poly, new Polygon(), PolyBool::selectUnion);
+            int count = 301 + 2 * random.nextInt(50);
+            double[] xs = new double[count];
+            double[] ys = new double[count];
+            for (int i = 0; i < count; i++) {
+                xs[i] = random.nextDouble() * 12 - 1;
+                ys[i] = random.nextDouble() * 12 - 1;
+            }
+            if (!poly.getRegions().isEmpty()) {
+                double[] vertex = poly.getRegions().get(0).get(0); // on the boundary, and skipped
+                xs[0] = vertex[0];
+                ys[0] = vertex[1];
+            }
+
+            for (Epsilon eps : new Epsilon[]{epsilon(), new RobustEpsilon()}) {
+                boolean[] inside = new boolean[count];
+                PolyBool.pointsInside(eps, poly, xs, ys, inside);
+                boolean same = true;
+                for (int i = 0; i < count; i++) {
+                    if (distance(clean, xs[i], ys[i]) > 1e-9)
+                        same &= inside[i] == inside(clean, xs[i], ys[i]);
+                }
+                check("points inside #" + n + ", " + eps.getClass().getSimpleName(), same);
+            }
+        }
+    }
+
+    private static void simplifyStage() {
+        // the operations with the simplification stage of the options, sharing a cache across two
+        // tolerances, against the plain pipeline on polygons simplified beforehand
+        Random random = new Random(50);
+        SegmentsCache cache = new SegmentsCache(1 << 20);
+        for (int n = 0; n < 30; n++) {
+            Polygon poly1 = n % 3 == 0 ? convexRing(random, 5, 5) : star(random, 5, 5, 200);
+            Polygon poly2 = n % 3 == 0 ? convexRing(random, 6, 5) : star(random, 6, 5, 200);
+            for (double tolerance : new double[]{0.02, 0.2}) {
+                Epsilon eps = epsilon();
+                eps.options(PolyBoolOptions.DEFAULT.withSegmentsCache(cache).withSimplifyTolerance(tolerance));
+                Polygon simple1 = PolyBool.simplify(poly1, tolerance);
+                Polygon simple2 = PolyBool.simplify(poly2, tolerance);
+                String name = "simplify stage #" + n + ", tolerance " + tolerance;
+                same(name + ", union", plain(simple1, simple2, PolyBool::selectUnion), PolyBool.union(eps, poly1, poly2));
+                same(name + ", intersection", plain(simple1, simple2, PolyBool::selectIntersect), PolyBool.intersect(eps, poly1, poly2));
+            }
+        }
+    }
+
+    private static Polygon copy(Polygon poly) {
+        return shifted(poly, 0, 0);
+    }
+
+    private static Polygon convexRing(Random random, double cx, double cy) {
+        // points on a circle, counter-clockwise, at random angles
+        int points = 3 + random.nextInt(8);
+        double[] angles = new double[points];
+        for (int i = 0; i < points; i++)
+            angles[i] = random.nextDouble() * 2 * Math.PI;
+        Arrays.sort(angles);
+        double radius = 1 + random.nextDouble() * 3;
+        List<double[]> region = new ArrayList<>();
+        for (double angle : angles)
+            region.add(point(cx + radius * Math.cos(angle), cy + radius * Math.sin(angle)));
+        return polygon(region);
+    }
+
+    private static Polygon star(Random random, double cx, double cy, int points) {
+        // a ring around the center with a random radius at every angle
+        List<double[]> region = new ArrayList<>();
+        for (int i = 0; i < points; i++) {
+            double angle = 2 * Math.PI * i / points;
+            double radius = 1 + random.nextDouble() * 3;
+            region.add(point(cx + radius * Math.cos(angle), cy + radius * Math.sin(angle)));
+        }
+        return polygon(region);
+    }
+
+    private static double[] bounds(Polygon poly) {
+        double[] box = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (List<double[]> region : poly.getRegions()) {
+            for (double[] pt : region) {
+                box[0] = Math.min(box[0], pt[0]);
+                box[1] = Math.min(box[1], pt[1]);
+                box[2] = Math.max(box[2], pt[0]);
+                box[3] = Math.max(box[3], pt[1]);
+            }
+        }
+        return box;
+    }
+
+    private static boolean samePoints(List<double[]> points1, List<double[]> points2) {
+        if (points1.size() != points2.size())
+            return false;
+        for (int i = 0; i < points1.size(); i++) {
+            if (!Arrays.equals(points1.get(i), points2.get(i)))
+                return false;
+        }
+        return true;
+    }
+
+    private static double length(List<List<double[]>> lines) {
+        double length = 0;
+        for (List<double[]> line : lines) {
+            for (int i = 1; i < line.size(); i++)
+                length += Math.hypot(line.get(i)[0] - line.get(i - 1)[0], line.get(i)[1] - line.get(i - 1)[1]);
+        }
+        return length;
+    }
+
+    private static boolean sides(Polygon poly, List<List<double[]>> lines, Boolean inside) {
+        // the middle of every edge is inside the polygon, outside it, or on its boundary (null)
+        // middles closer to the boundary than the rounding of the sweep aren't told apart
+        for (List<double[]> line : lines) {
+            for (int i = 1; i < line.size(); i++) {
+                double x = (line.get(i - 1)[0] + line.get(i)[0]) / 2;
+                double y = (line.get(i - 1)[1] + line.get(i)[1]) / 2;
+                boolean onBoundary = distance(poly, x, y) < 1e-9;
+                if (inside == null ? !onBoundary : !onBoundary && inside(poly, x, y) != inside)
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean inside(Polygon poly, double x, double y) {
+        // even-odd crossings of a ray going right
+        boolean inside = poly.isInverted();
+        for (List<double[]> region : poly.getRegions()) {
+            for (int i = 0, j = region.size() - 1; i < region.size(); j = i++) {
+                double[] a = region.get(i);
+                double[] b = region.get(j);
+                if ((a[1] > y) != (b[1] > y) && x < a[0] + (y - a[1]) * (b[0] - a[0]) / (b[1] - a[1]))
+                    inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    private static double distance(Polygon poly, double x, double y) {
+        // from the point to the closest edge
+        double distance = Double.POSITIVE_INFINITY;
+        for (List<double[]> region : poly.getRegions()) {
+            for (int i = 0, j = region.size() - 1; i < region.size(); j = i++) {
+                double[] a = region.get(i);
+                double[] b = region.get(j);
+                double dx = b[0] - a[0];
+                double dy = b[1] - a[1];
+                double t = Math.max(0, Math.min(1, ((x - a[0]) * dx + (y - a[1]) * dy) / (dx * dx + dy * dy)));
+                distance = Math.min(distance, Math.hypot(a[0] + t * dx - x, a[1] + t * dy - y));
+            }
+        }
+        return distance;
+    }
+
+    private static Polygon plain(Polygon poly1, Polygon poly2, Function<PolyBool.Combined, PolyBool.Segments> select) {
+        // the operation without any of the shortcuts: sweep both, combine, select and chain
+        Epsilon eps = epsilon();
+        return PolyBool.polygon(eps, select.apply(PolyBool.combine(
+                eps, PolyBool.segments(eps, poly1), PolyBool.segments(eps, poly2)
+        )));
+    }
+
+    private static Polygon shifted(Polygon poly, double dx, double dy) {
+        List<List<double[]>> regions = new ArrayList<>();
+        for (List<double[]> region : poly.getRegions()) {
+            List<double[]> moved = new ArrayList<>();
+            for (double[] pt : region)
+                moved.add(point(pt[0] + dx, pt[1] + dy));
+            regions.add(moved);
+        }
+        return new Polygon(regions, poly.isInverted());
+    }
+
+    private static Polygon randomPolygon(Random random, int n) {
+        // rings of random points, which may cross themselves and each other, every third one
+        // cleaned up by the library first, and every other one inverted
+        List<List<double[]>> regions = new ArrayList<>();
+        int count = 1 + random.nextInt(3);
+        for (int r = 0; r < count; r++) {
+            List<double[]> region = new ArrayList<>();
+            int points = 3 + random.nextInt(8);
+            for (int i = 0; i < points; i++)
+                region.add(point(random.nextDouble() * 10, random.nextDouble() * 10));
+            regions.add(region);
+        }
+        Polygon poly = new Polygon(regions, n % 2 == 1);
+        if (n % 3 == 0)
+            poly = PolyBool.union(epsilon(), poly, new Polygon());
+        return poly;
+    }
+
+    private static void same(String name, Polygon expected, Polygon actual) {
+        // the same area, chained into the same number of simple rings
+        // the polygons are all within a few tens of units, so the areas are compared as they are
+        Epsilon eps = epsilon();
+        double difference = PolyBool.area(PolyBool.selectXor(PolyBool.combine(
+                eps, PolyBool.segments(eps, expected), PolyBool.segments(eps, actual)
+        )));
+        check(name + ": inverted", expected.isInverted() == actual.isInverted());
+        check(name + ": area", difference <= 1e-7);
+        check(name + ": region count", expected.getRegions().size() == actual.getRegions().size());
+        check(name + ": rings are simple", RegressionCheck.crossings(actual) == 0);
+    }
+
+    private static void check(String name, boolean passed) {
+        if (!passed)
+            failures.add(name);
+    }
+}
@@ -0,0 +1,152 @@
+package com.menecats.polybool;
+
+import com.menecats.polybool.models.Polygon;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.menecats.polybool.helpers.PolyBoolHelper.*;
+
+public class RegressionCheck {
+    // inputs that once gave wrong results, run by `./gradlew check`, which fails when any of them
+    // breaks again
+    private static final List<String> failures = new ArrayList<>();
+
+    public static void main(String[] args) {
+        touchingRegions();
+        robustIntersectionNearZero();
+        edgeAcrossSlabs();
+        errorInSlab();
+        changedInPlace();
+
+        if (!failures.isEmpty()) {
+            System.err.println("Regressions:");
+            for (String failure : failures)
+                System.err.println("  " + failure);
+            System.exit(1);
+        }
+        System.out.println("No regressions");
+    }
+
+    private static void touchingRegions() {
+        // the union is two regions touching at a vertex; with the edges away from the other
+        // polygon reported out of the sweep order, they were chained into one ring crossing
+        // itself at (12.214, 7.071)
+        Polygon union = PolyBool.union(
+                epsilon(),
+                polygon(region(point(5, 7), point(1, 11), point(-3, 7), point(1, 3))),
+                polygon(region(
+                        point(5, 16), point(10, 10), point(0, 3), point(9, 4),
+                        point(9, 0), point(14, 11), point(18, 9), point(3, 4)
+                ))
+        );
+        check("touching regions: region count", union.getRegions().size() == 2);
+        check("touching regions: rings are simple", crossings(union) == 0);
+    }
+
+    private static void robustIntersectionNearZero() {
+        // an edge meets the vertex (11.48, 0) at y = 8.9e-16, which a tolerance relative to the
+        // coordinates alone didn't snap to the vertex, so the sweep failed on a zero-length segment
+        Polygon ring = polygon(region(
+                point(11.48, 0), point(8.9, 4.89), point(4.29, 3.12), point(-0.37, 2.59),
+                point(1.29, -1.78), point(4.26, -3.25), point(6.43, -1.8)
+        ));
+        double area = PolyBool.area(PolyBool.segments(epsilon(), ring));
+        for (Epsilon eps : new Epsilon[]{new RobustEpsilon(), new RobustEpsilon(0)}) {
+            String name = "robust intersection near zero, epsilon " + eps.epsilon();
+            try {
+                check(name, Math.abs(PolyBool.area(PolyBool.segments(eps, ring)) - area) < 1e-9);
+            } catch (RuntimeException e) {
+                check(name + ": " + e.getMessage(), false);
+            }
+        }
+    }
+
+    private static void edgeAcrossSlabs() {
+        // a thin wedge over a row of squares, large enough to be swept in slabs (the task runs
+        // with a common pool of 4), whose long edges cross every boundary; an edge cut more than
+        // once had its later cuts moved off its line, and the wedge changed shape
+        List<List<double[]>> squares = new ArrayList<>();
+        for (int i = 0; i < 1600; i++)
+            squares.add(region(point(2 * i, 0), point(2 * i + 1, 0), point(2 * i + 1, 1), point(2 * i, 1)));
+        Polygon row = new Polygon(squares);
+        Polygon wedge = polygon(region(point(-1, 0.5), point(3200, 0.1), point(3200, 0.9)));
+
+        Epsilon parallel = epsilon();
+        parallel.options(PolyBoolOptions.DEFAULT.withParallelSweep(true));
+        Polygon expected = PolyBool.union(epsilon(), row, wedge);
+        Polygon union = PolyBool.union(parallel, row, wedge);
+        double area = PolyBool.area(PolyBool.segments(epsilon(), expected));
+        check("edge across slabs: area", Math.abs(PolyBool.area(PolyBool.segments(epsilon(), union)) - area) < 1e-9 * area);
+        check("edge across slabs: rings are simple", crossings(union) == 0);
+    }
+
+    private static void errorInSlab() {
+        // a slab failing on a point without coordinates threw the error wrapped by the pool, as
+        // "java.lang.RuntimeException: PolyBool: Zero-length segment...", unlike the single sweep
+        List<List<double[]>> regions = new ArrayList<>();
+        for (int i = 0; i < 1600; i++)
+            regions.add(region(point(2 * i, 0), point(2 * i + 1, 0), point(2 * i + 1, 1), point(2 * i, 1)));
+        regions.add(region(point(Double.NaN, 2), point(3001, 3), point(3000, 3)));
+        Polygon broken = new Polygon(regions);
+
+        String[] messages = new String[2];
+        for (int k = 0; k < 2; k++) {
+            Epsilon eps = epsilon();
+            eps.options(PolyBoolOptions.DEFAULT.withParallelSweep(k == 1));
+            try {
+                PolyBool.segments(eps, broken);
+            } catch (RuntimeException e) {
+                messages[k] = e.getMessage();
+            }
+        }
+        check("error in slab: thrown", messages[0] != null);
+        check("error in slab: same message", messages[0] != null && messages[0].equals(messages[1]));
+    }
+
+    private static void changedInPlace() {
+        // a result changed in place kept its clean flag, and was exported to GeoJSON as it was,
+        // crossing itself
+        Polygon union = PolyBool.union(
+                epsilon(),
+                polygon(region(point(0, 0), point(4, 0), point(4, 4), point(0, 4))),
+                polygon(region(point(2, 2), point(6, 2), point(6, 6), point(2, 6)))
+        );
+        check("changed in place: clean before", union.isClean());
+        for (double[] pt : union.getRegions().get(0)) {
+            if (pt[0] == 6 && pt[1] == 6)
+                pt[0] = -6; // the ring now crosses itself
+        }
+        check("changed in place: not clean after", !union.isClean());
+    }
+
+    private static void check(String name, boolean passed) {
+        if (!passed)
+            failures.add(name);
+    }
+
+    static int crossings(Polygon polygon) {
+        // the pairs of edges of the result crossing each other away from their endpoints
+        List<double[][]> edges = new ArrayList<>();
+        for (List<double[]> region : polygon.getRegions()) {
+            for (int i = 0; i < region.size(); i++)
+                edges.add(new double[][]{region.get(i), region.get((i + 1) % region.size())});
+        }
+
+        int count = 0;
+        for (int i = 0; i < edges.size(); i++) {
+            for (int j = i + 1; j < edges.size(); j++) {
+                double[][] a = edges.get(i);
+                double[][] b = edges.get(j);
+                if (side(b[0], b[1], a[0]) * side(b[0], b[1], a[1]) < 0 &&
+                        side(a[0], a[1], b[0]) * side(a[0], a[1], b[1]) < 0)
+                    count++;
+            }
+        }
+        return count;
+    }
+
+    private static int side(double[] a, double[] b, double[] pt) {
+        return (int) Math.signum((b[0] - a[0]) * (pt[1] - a[1]) - (b[1] - a[1]) * (pt[0] - a[0]));
+    }
+}